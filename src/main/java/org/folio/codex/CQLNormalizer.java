@@ -0,0 +1,149 @@
+package org.folio.codex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.z3950.zing.cql.CQLAndNode;
+import org.z3950.zing.cql.CQLBooleanNode;
+import org.z3950.zing.cql.CQLNode;
+import org.z3950.zing.cql.CQLOrNode;
+import org.z3950.zing.cql.CQLSortNode;
+import org.z3950.zing.cql.CQLTermNode;
+import org.z3950.zing.cql.Modifier;
+import org.z3950.zing.cql.ModifierSet;
+
+/**
+ * Writes a parsed CQL query in a canonical form, so that queries which only differ in whitespace,
+ * redundant parentheses, the order of the operands of and/or, or the case of relations and boolean
+ * operators, give the same string.
+ *
+ * <p>Nested and/or clauses without modifiers are flattened and their operands sorted; not and prox
+ * keep their order. Terms are always quoted and every boolean operand is parenthesized, so the
+ * result is valid CQL. Index names and terms keep their case, since the modules may depend on it.
+ */
+public class CQLNormalizer {
+
+  private CQLNormalizer() {
+  }
+
+  /**
+   * Returns the canonical form of a query, or an empty string if there is no query.
+   */
+  public static String normalize(CQLNode node) {
+    if (node == null) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder();
+    write(node, sb);
+    return sb.toString();
+  }
+
+  /**
+   * Returns a stable 64-bit hash of a canonical query.
+   */
+  public static long hash(String canonicalQuery) {
+    return Fnv1a.hash(canonicalQuery);
+  }
+
+  private static void write(CQLNode node, StringBuilder sb) {
+    if (node instanceof CQLSortNode) {
+      CQLSortNode sortNode = (CQLSortNode) node;
+      write(sortNode.getSubtree(), sb);
+      sb.append(" sortby");
+      for (ModifierSet index : sortNode.getSortIndexes()) {
+        sb.append(' ').append(index.getBase());
+        writeModifiers(index.getModifiers(), sb);
+      }
+    } else if (node instanceof CQLBooleanNode) {
+      writeBoolean((CQLBooleanNode) node, sb);
+    } else if (node instanceof CQLTermNode) {
+      CQLTermNode termNode = (CQLTermNode) node;
+      sb.append(termNode.getIndex()).append(' ')
+        .append(termNode.getRelation().getBase().toLowerCase(Locale.ROOT));
+      List<String> modifiers = new ArrayList<>();
+      for (Modifier modifier : termNode.getRelation().getModifiers()) {
+        modifiers.add(modifier(modifier));
+      }
+      modifiers.sort(null);
+      modifiers.forEach(sb::append);
+      sb.append(' ');
+      quote(termNode.getTerm(), sb);
+    } else {
+      // prefix assignments are rare; keep them as the parser writes them
+      sb.append(node.toCQL());
+    }
+  }
+
+  private static void writeBoolean(CQLBooleanNode node, StringBuilder sb) {
+    final String operator = node.getOperator().toString().toLowerCase(Locale.ROOT);
+    final boolean commutative = (node instanceof CQLAndNode || node instanceof CQLOrNode)
+      && node.getModifiers().isEmpty();
+    List<String> operands = new ArrayList<>();
+    if (commutative) {
+      collectOperands(node, node.getClass(), operands);
+      operands.sort(null);
+    } else {
+      operands.add(operand(node.getLeftOperand()));
+      operands.add(operand(node.getRightOperand()));
+    }
+    for (int i = 0; i < operands.size(); i++) {
+      if (i > 0) {
+        sb.append(' ').append(operator);
+        writeModifiers(node.getModifiers(), sb);
+        sb.append(' ');
+      }
+      sb.append(operands.get(i));
+    }
+  }
+
+  private static void collectOperands(CQLNode node, Class<?> operatorClass, List<String> operands) {
+    if (node.getClass() == operatorClass && ((CQLBooleanNode) node).getModifiers().isEmpty()) {
+      collectOperands(((CQLBooleanNode) node).getLeftOperand(), operatorClass, operands);
+      collectOperands(((CQLBooleanNode) node).getRightOperand(), operatorClass, operands);
+    } else {
+      operands.add(operand(node));
+    }
+  }
+
+  private static String operand(CQLNode node) {
+    StringBuilder sb = new StringBuilder();
+    if (node instanceof CQLBooleanNode) {
+      sb.append('(');
+      write(node, sb);
+      sb.append(')');
+    } else {
+      write(node, sb);
+    }
+    return sb.toString();
+  }
+
+  private static void writeModifiers(List<Modifier> modifiers, StringBuilder sb) {
+    for (Modifier modifier : modifiers) {
+      sb.append(modifier(modifier));
+    }
+  }
+
+  private static String modifier(Modifier modifier) {
+    StringBuilder sb = new StringBuilder("/").append(modifier.getType().toLowerCase(Locale.ROOT));
+    if (modifier.getComparison() != null) {
+      sb.append(' ').append(modifier.getComparison()).append(' ');
+      quote(modifier.getValue(), sb);
+    }
+    return sb.toString();
+  }
+
+  private static void quote(String term, StringBuilder sb) {
+    sb.append('"');
+    boolean escaped = false;
+    for (int i = 0; i < term.length(); i++) {
+      char c = term.charAt(i);
+      if (c == '"' && !escaped) {
+        sb.append('\\');
+      }
+      escaped = c == '\\' && !escaped;
+      sb.append(c);
+    }
+    sb.append('"');
+  }
+}
@@ -1,16 +1,11 @@
 package org.folio.codex;
 
-import java.io.IOException;
 import java.util.Comparator;
-import java.util.Objects;
+import java.util.function.Function;
 
 import org.z3950.zing.cql.CQLNode;
-import org.z3950.zing.cql.CQLParseException;
-import org.z3950.zing.cql.CQLParser;
 import org.z3950.zing.cql.CQLSortNode;
 
-import org.folio.codex.exception.QueryValidationException;
-
 public class CQLParameters<T> {
 
   private Comparator<T> comparator;
@@ -19,36 +14,57 @@ public class CQLParameters<T> {
     return comparator;
   }
 
-  private CQLNode cqlNode;
+  private final QueryPlan plan;
+
+  private final String query;
+
+  public String getQuery() {
+    return query;
+  }
 
   public CQLNode getCqlNode() {
-    return cqlNode;
+    return plan.getCqlNode();
+  }
+
+  /**
+   * Returns the canonical form of the query, see {@link CQLNormalizer}; empty if there is no query.
+   */
+  public String getCanonicalQuery() {
+    return plan.getCanonicalQuery();
+  }
+
+  /**
+   * Returns the 64-bit hash of the canonical form of the query.
+   */
+  public long getQueryHash() {
+    return CQLNormalizer.hash(getCanonicalQuery());
   }
 
   public CQLSortNode getCQLSortNode() {
-    return Objects.isNull(cqlNode) ? null : CQLInspect.getSort(cqlNode);
+    return plan.getSortNode();
+  }
+
+  /**
+   * Returns the query to send to module, see {@link QueryPlan#getModuleQuery}.
+   */
+  public String getModuleQuery(String module, Function<String, String> reducer) {
+    return plan.getModuleQuery(module, reducer);
   }
 
   public CQLParameters(String query) {
-    if (query != null) {
-      cqlNode = parseQuery(query);
-    }
+    this.query = query;
+    this.plan = QueryPlan.get(query);
   }
 
   public void setComparator(Comparator<T> comparatorClass) {
       this.comparator = comparatorClass;
   }
 
-  private CQLNode parseQuery(String query) {
-    final CQLParser parser = new CQLParser(CQLParser.V1POINT2);
-    try {
-      return parser.parse(query);
-    } catch (CQLParseException | IOException e) {
-      throw new QueryValidationException("Unsupported Query Format : Search query is in an unsupported format.", e);
-    }
-
+  /**
+   * Sets the comparator for records of type, created by factory from the sort node of the query.
+   * The comparator is created once per query and type and then shared.
+   */
+  public void setComparator(Class<T> type, Function<CQLSortNode, Comparator<T>> factory) {
+    this.comparator = plan.getComparator(type, factory);
   }
-
-
-
 }
@@ -0,0 +1,30 @@
+package org.folio.codex;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 64-bit FNV-1a hash, used where the multiplexer needs a compact, stable key.
+ */
+final class Fnv1a {
+
+  static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long PRIME = 0x100000001b3L;
+
+  private Fnv1a() {
+  }
+
+  /**
+   * Continues hash h with the UTF-8 bytes of s.
+   */
+  static long hash(long h, String s) {
+    for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b & 0xff;
+      h *= PRIME;
+    }
+    return h;
+  }
+
+  static long hash(String s) {
+    return hash(OFFSET_BASIS, s);
+  }
+}
@@ -0,0 +1,90 @@
+package org.folio.codex;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Remembers where a merged search stopped, so that the next page of the same search can
+ * continue from there instead of fetching offset + limit records from every module again.
+ *
+ * <p>A cursor holds, per module, the records that were fetched but not yet merged and the
+ * offset of the next record to fetch from the module. Cursors are keyed by an opaque token
+ * derived from the search ({@link SearchScope}, interface, modules and query) and the
+ * merged offset at which they continue. A cursor can be taken only once; the continuing
+ * request stores a new one for the page after it.
+ */
+public class MergeCursorStore {
+
+  static final long TTL = Long.getLong("codex.mux.cursor.ttl", 60000L);
+  static final int MAX_SIZE = Integer.getInteger("codex.mux.cursor.maxSize", 1000);
+
+  private static final String STORE_KEY = "mergeCursorStore";
+
+  private static class Entry {
+    private final Map<String, ?> sources;
+    private final long created;
+
+    Entry(Map<String, ?> sources, long created) {
+      this.sources = sources;
+      this.created = created;
+    }
+  }
+
+  private final long ttl;
+  private final Map<String, Entry> cursors;
+
+  MergeCursorStore(long ttl, int maxSize) {
+    this.ttl = ttl;
+    this.cursors = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the cursor store of a Vert.x instance.
+   */
+  public static MergeCursorStore get(Vertx vertx) {
+    return SharedObjects.get(vertx, STORE_KEY, () -> new MergeCursorStore(TTL, MAX_SIZE));
+  }
+
+  public boolean isEnabled() {
+    return ttl > 0;
+  }
+
+  /**
+   * Returns the token identifying a search, independent of the page that is requested.
+   */
+  public static String searchToken(Map<String, String> headers, CodexInterfaces codexInterface,
+                                   List<String> modules, String query) {
+    return SearchScope.of(headers) + '|' + codexInterface.getValue() + '|'
+      + String.join(",", modules) + '|' + query;
+  }
+
+  /**
+   * Stores the state of the module collections for the search continuing at offset.
+   */
+  public synchronized <T> void put(String searchToken, int offset, Map<String, Multiplexer.MuxCollection<T>> sources) {
+    if (isEnabled()) {
+      cursors.put(searchToken + '@' + offset, new Entry(sources, System.currentTimeMillis()));
+    }
+  }
+
+  /**
+   * Removes and returns the module collections for the search continuing at offset,
+   * or null if there is no usable cursor.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <T> Map<String, Multiplexer.MuxCollection<T>> take(String searchToken, int offset) {
+    Entry entry = cursors.remove(searchToken + '@' + offset);
+    if (entry == null || System.currentTimeMillis() - entry.created >= ttl) {
+      return null;
+    }
+    return (Map<String, Multiplexer.MuxCollection<T>>) entry.sources;
+  }
+}
@@ -1,9 +1,14 @@
 package org.folio.codex;
 
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import io.vertx.core.Context;
 
+import org.folio.codex.parser.CollectionEncoder;
+import org.folio.codex.parser.StreamingCollectionDecoder;
+
 public class MergeRequest <T> {
 
   private int offset;
@@ -11,6 +16,10 @@ public class MergeRequest <T> {
   private Map<String, String> headers;
   private Context vertxContext;
   private Map<String, Multiplexer.MuxCollection<T>> muxCollectionMap;
+  private Function<T, String> idGetter;
+  private CollectionEncoder<T> encoder;
+  private Supplier<StreamingCollectionDecoder<T>> decoders;
+  private RequestTiming timing;
 
   public int getOffset() {
     return offset;
@@ -32,12 +41,32 @@ public class MergeRequest <T> {
     return muxCollectionMap;
   }
 
+  public Function<T, String> getIdGetter() {
+    return idGetter;
+  }
+
+  public CollectionEncoder<T> getEncoder() {
+    return encoder;
+  }
+
+  public Supplier<StreamingCollectionDecoder<T>> getDecoders() {
+    return decoders;
+  }
+
+  public RequestTiming getTiming() {
+    return timing;
+  }
+
   private MergeRequest(MergeRequestBuilder<T> builder) {
     this.offset = builder.offset;
     this.limit = builder.limit;
     this.headers = builder.headers;
     this.vertxContext = builder.vertxContext;
     this.muxCollectionMap = builder.muxCollectionMap;
+    this.idGetter = builder.idGetter;
+    this.encoder = builder.encoder;
+    this.decoders = builder.decoders;
+    this.timing = builder.timing;
   }
 
   public static class MergeRequestBuilder<T> {
@@ -47,7 +76,10 @@ public class MergeRequest <T> {
     private Map<String, String> headers;
     private Context vertxContext;
     private Map<String, Multiplexer.MuxCollection<T>> muxCollectionMap;
-
+    private Function<T, String> idGetter;
+    private CollectionEncoder<T> encoder;
+    private Supplier<StreamingCollectionDecoder<T>> decoders;
+    private RequestTiming timing;
 
     public MergeRequestBuilder<T> setOffset(int offset) {
       this.offset = offset;
@@ -74,6 +106,38 @@ public class MergeRequest <T> {
       return this;
     }
 
+    public MergeRequestBuilder<T> setIdGetter(Function<T, String> idGetter) {
+      this.idGetter = idGetter;
+      return this;
+    }
+
+    /**
+     * Sets the encoder that merged records are written to as they are merged; without one they
+     * are collected in the items of the result.
+     */
+    public MergeRequestBuilder<T> setEncoder(CollectionEncoder<T> encoder) {
+      this.encoder = encoder;
+      return this;
+    }
+
+    /**
+     * Sets the factory of the decoders that decode the responses of the modules while they are
+     * received; without one the responses are buffered and then parsed.
+     */
+    public MergeRequestBuilder<T> setDecoders(Supplier<StreamingCollectionDecoder<T>> decoders) {
+      this.decoders = decoders;
+      return this;
+    }
+
+    /**
+     * Sets the timing that the requests to the modules and the merge are recorded in, or null
+     * if the caller did not ask for timing.
+     */
+    public MergeRequestBuilder<T> setTiming(RequestTiming timing) {
+      this.timing = timing;
+      return this;
+    }
+
     public MergeRequest<T> build() {
       return new MergeRequest<>(this);
     }
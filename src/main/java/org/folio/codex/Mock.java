@@ -37,6 +37,7 @@ public class Mock implements CodexInstances {
   List<Instance> mInstances = new LinkedList<>();
 
   private String id;
+  private boolean failedOnce;
 
   private Instance createHowToProgramAComputer() {
     Instance e = new Instance();
@@ -137,6 +138,19 @@ public class Mock implements CodexInstances {
           Future.succeededFuture(CodexInstances.GetCodexInstancesResponse.respond500WithTextPlain(ex.getMessage())));
         return;
       }
+      // be able to provoke 500 for all windows but the first
+      if (query.startsWith("failnext") && offset > 0) {
+        asyncResultHandler.handle(
+          Future.succeededFuture(CodexInstances.GetCodexInstancesResponse.respond500WithTextPlain("provoked failure at offset " + offset)));
+        return;
+      }
+      // be able to provoke 500 for the first search of this mock only
+      if (query.equals("failonce" + id) && !failedOnce) {
+        failedOnce = true;
+        asyncResultHandler.handle(
+          Future.succeededFuture(CodexInstances.GetCodexInstancesResponse.respond500WithTextPlain("provoked failure once")));
+        return;
+      }
       // be able to provoke 400 for mock prefix
       if (query.startsWith("mock") && !query.equals(id)) {
         asyncResultHandler.handle(
@@ -172,7 +186,7 @@ public class Mock implements CodexInstances {
 
   @Override
   public void getCodexInstancesById(String id, String lang, Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
-    logger.info("codex.mock getCodexInstancesById {}", id);
+    logger.debug("codex.mock getCodexInstancesById {}", id);
     for (Instance e : mInstances) {
       if (e.getId() != null && e.getId().equals(id)) {
         asyncResultHandler.handle(Future.succeededFuture(CodexInstances.GetCodexInstancesByIdResponse.respond200WithApplicationJson(e)));
@@ -0,0 +1,147 @@
+package org.folio.codex;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.common.OkapiParams;
+
+/**
+ * Cache of the codex modules that Okapi reports for a tenant and interface.
+ * Entries are fresh for ttl milliseconds; after that they are served for another
+ * staleTtl milliseconds while a single background lookup refreshes them. Concurrent
+ * lookups of the same key share one in-flight request. Failed lookups are not cached.
+ */
+public class ModuleListCache {
+
+  static final long TTL = Long.getLong("codex.mux.modules.cache.ttl", 60000L);
+  static final long STALE_TTL = Long.getLong("codex.mux.modules.cache.staleTtl", 300000L);
+  static final int MAX_SIZE = Integer.getInteger("codex.mux.modules.cache.maxSize", 1000);
+
+  private static final String CACHE_KEY = "moduleListCache";
+  private static final Logger logger = LogManager.getLogger("codex.mux");
+
+  private static class Entry {
+    private final String tenant;
+    private final List<String> modules;
+    private final long loaded;
+
+    Entry(String tenant, List<String> modules, long loaded) {
+      this.tenant = tenant;
+      this.modules = modules;
+      this.loaded = loaded;
+    }
+  }
+
+  private static class Lookup {
+    private final String tenant;
+    private final Promise<List<String>> promise = Promise.promise();
+
+    Lookup(String tenant) {
+      this.tenant = tenant;
+    }
+  }
+
+  private final long ttl;
+  private final long staleTtl;
+  private final Map<String, Entry> entries;
+  private final Map<String, Lookup> inFlight = new HashMap<>();
+
+  ModuleListCache(long ttl, long staleTtl, int maxSize) {
+    this.ttl = ttl;
+    this.staleTtl = staleTtl;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the module list cache of a Vert.x instance.
+   */
+  public static ModuleListCache get(Vertx vertx) {
+    return SharedObjects.get(vertx, CACHE_KEY, () -> new ModuleListCache(TTL, STALE_TTL, MAX_SIZE));
+  }
+
+  /**
+   * Returns the cached module list for tenant and interface, using loader to look it up
+   * when there is no usable entry.
+   * @param okapiParams Okapi location and tenant of the request
+   * @param codexInterface interface the modules provide
+   * @param loader performs the actual lookup against Okapi
+   */
+  public Future<List<String>> getModules(OkapiParams okapiParams, CodexInterfaces codexInterface,
+                                         Supplier<Future<List<String>>> loader) {
+    if (ttl <= 0) {
+      return loader.get();
+    }
+    final String key = okapiParams.getHost() + ":" + okapiParams.getPort() + "/" + okapiParams.getTenant()
+      + "/" + codexInterface.getValue();
+    final long now = System.currentTimeMillis();
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        long age = now - entry.loaded;
+        if (age < ttl) {
+          return Future.succeededFuture(entry.modules);
+        }
+        if (age < ttl + staleTtl) {
+          logger.debug("Refreshing stale module list for {}", key);
+          load(key, okapiParams.getTenant(), loader);
+          return Future.succeededFuture(entry.modules);
+        }
+        entries.remove(key);
+      }
+      return load(key, okapiParams.getTenant(), loader);
+    }
+  }
+
+  private synchronized Future<List<String>> load(String key, String tenant, Supplier<Future<List<String>>> loader) {
+    Lookup lookup = inFlight.get(key);
+    if (lookup != null) {
+      return lookup.promise.future();
+    }
+    final Lookup newLookup = new Lookup(tenant);
+    inFlight.put(key, newLookup);
+    loader.get().onComplete(res -> {
+      synchronized (this) {
+        // an invalidation while the lookup was running makes its result unusable for the cache
+        if (inFlight.get(key) == newLookup) {
+          inFlight.remove(key);
+          if (res.succeeded()) {
+            entries.put(key, new Entry(tenant, Collections.unmodifiableList(res.result()), System.currentTimeMillis()));
+          }
+        }
+      }
+      newLookup.promise.handle(res);
+    });
+    return newLookup.promise.future();
+  }
+
+  /**
+   * Drops all cached module lists of a tenant, so the next request looks them up in Okapi again.
+   */
+  public synchronized void invalidate(String tenant) {
+    entries.values().removeIf(entry -> entry.tenant.equals(tenant));
+    inFlight.values().removeIf(lookup -> lookup.tenant.equals(tenant));
+  }
+
+  /**
+   * Drops all cached module lists.
+   */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    inFlight.clear();
+  }
+}
@@ -5,12 +5,12 @@ import static org.folio.codex.ResultInformation.analyzeResult;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
 import javax.ws.rs.core.Response;
@@ -19,42 +19,75 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
-import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.WebClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.z3950.zing.cql.CQLNode;
 import org.z3950.zing.cql.CQLRelation;
 import org.z3950.zing.cql.CQLTermNode;
 
+import org.folio.codex.breaker.CircuitBreakers;
 import org.folio.codex.comparator.InstanceComparator;
+import org.folio.codex.exception.CircuitOpenException;
 import org.folio.codex.exception.GetModulesFailException;
 import org.folio.codex.exception.QueryValidationException;
+import org.folio.codex.merge.KWayMerge;
+import org.folio.codex.metrics.MuxMetrics;
+import org.folio.codex.parser.CollectionEncoder;
 import org.folio.codex.parser.InstanceCollectionParser;
+import org.folio.codex.parser.StreamingCollectionDecoder;
+import org.folio.codex.tracing.Span;
+import org.folio.codex.tracing.Tracer;
 import org.folio.common.OkapiParams;
 import org.folio.okapi.common.CqlUtil;
 import org.folio.okapi.common.GenericCompositeFuture;
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Instance;
-import org.folio.rest.jaxrs.model.InstanceCollection;
 import org.folio.rest.jaxrs.model.ResultInfo;
 import org.folio.rest.jaxrs.resource.CodexInstances;
+import org.folio.rest.tools.utils.BinaryOutStream;
 
 @java.lang.SuppressWarnings({"squid:S1192"})
 public class Multiplexer implements CodexInstances {
 
-  private static final String TOTAL_RECORDS = "totalRecords";
-  private static final String RESULT_INFO = "resultInfo";
-
+  /**
+   * Result of a module for a search. colExt holds the resultInfo of the module and the window of
+   * records fetched last; fetched is the offset in the module's result just after that window.
+   */
   public static class MuxCollection<T> {
     int statusCode;
     Buffer message;
     CollectionExtension<T> colExt;
     String query;
+    int fetched;
+    boolean lastWindowFull;
+    Throwable failure;
+    StreamingCollectionDecoder<T> decoder;
+    long bytes;
+    long parseNanos;
+
+    /**
+     * Number of records of the module that have not been fetched yet, or -1 if unknown.
+     */
+    int remaining() {
+      if (colExt == null || colExt.getResultInfo() == null || colExt.getResultInfo().getTotalRecords() == null) {
+        return -1;
+      }
+      return Math.max(0, colExt.getResultInfo().getTotalRecords() - fetched);
+    }
+
+    boolean hasMore() {
+      if (colExt == null || colExt.getItems() == null) {
+        return false;
+      }
+      int remaining = remaining();
+      if (remaining < 0) {
+        // no total from the module: assume more as long as it fills the windows
+        return lastWindowFull;
+      }
+      return remaining > 0;
+    }
   }
 
   public static class CollectionExtension<T> {
@@ -80,122 +113,465 @@ public class Multiplexer implements CodexInstances {
 
   private static final Logger logger = LogManager.getLogger("codex.mux");
 
+  static final boolean ADAPTIVE_WINDOWS = Boolean.parseBoolean(System.getProperty("codex.mux.merge.adaptive", "true"));
+  static final int MIN_WINDOW = Integer.getInteger("codex.mux.merge.minWindow", 10);
+  static final boolean PARTIAL_RESULTS = Boolean.parseBoolean(System.getProperty("codex.mux.partialResults", "true"));
+
   private final OkapiClient okapiClient = new OkapiClient();
 
+  /**
+   * Gets a window of the result of a module. Records that are in the {@link PageCache} are taken from
+   * there; only the part of the window after them is fetched from the module.
+   */
   @SuppressWarnings({"squid:S00107"})
-  private <T> void getByQuery(String module, MergeRequest<T> mergeRequest, String query, int offset, int limit,
-                              CodexInterfaces codexInterface, Function<String, CollectionExtension<T>> parser,
-                              Handler<AsyncResult<Void>> handler) {
+  private <T> Future<MuxCollection<T>> getByQuery(String module, MergeRequest<T> mergeRequest, String query,
+                                                  int offset, int limit, CodexInterfaces codexInterface,
+                                                  Function<Buffer, CollectionExtension<T>> parser) {
+    final PageCache pageCache = PageCache.get(mergeRequest.getVertxContext().owner());
+    if (!pageCache.isEnabled()) {
+      return fetchByQuery(module, mergeRequest, query, offset, limit, codexInterface, parser);
+    }
+    final String key = PageCache.key(mergeRequest.getHeaders(), codexInterface, module, query);
+    final PageCache.Window<T> cached = pageCache.lookup(key, offset, limit);
+    final RequestTiming timing = mergeRequest.getTiming();
+    if (cached != null && cached.isComplete()) {
+      logger.debug("Page cache hit for module {} offset {} limit {}", module, offset, limit);
+      if (timing != null) {
+        timing.recordPageCache(module, "hit");
+      }
+      return Future.succeededFuture(getCachedCollection(query, offset, limit, cached));
+    }
+    if (timing != null) {
+      timing.recordPageCache(module, cached != null && !cached.getItems().isEmpty() ? "partial" : "miss");
+    }
+    final List<T> head = cached != null ? cached.getItems() : List.of();
+    final int tailOffset = offset + head.size();
+    final int tailLimit = limit - head.size();
+    return fetchByQuery(module, mergeRequest, query, tailOffset, tailLimit, codexInterface, parser)
+      .map(muxCollection -> {
+        if (muxCollection.statusCode != 200 || muxCollection.colExt == null || muxCollection.colExt.getItems() == null) {
+          return muxCollection;
+        }
+        List<T> tail = muxCollection.colExt.getItems();
+        pageCache.store(key, tailOffset, tail, muxCollection.colExt.getResultInfo(),
+          isExhausted(muxCollection, tailLimit));
+        if (!head.isEmpty()) {
+          List<T> items = new ArrayList<>(head.size() + tail.size());
+          items.addAll(head);
+          items.addAll(tail);
+          muxCollection.colExt.setItems(items);
+          muxCollection.lastWindowFull = limit > 0 && items.size() >= limit;
+        }
+        return muxCollection;
+      });
+  }
+
+  private static <T> MuxCollection<T> getCachedCollection(String query, int offset, int limit, PageCache.Window<T> window) {
+    MuxCollection<T> muxCollection = new MuxCollection<>();
+    muxCollection.statusCode = 200;
+    muxCollection.message = Buffer.buffer();
+    muxCollection.query = query;
+    muxCollection.colExt = new CollectionExtension<>();
+    muxCollection.colExt.setResultInfo(window.getResultInfo());
+    muxCollection.colExt.setItems(window.getItems());
+    muxCollection.fetched = offset + window.getItems().size();
+    muxCollection.lastWindowFull = limit > 0 && window.getItems().size() >= limit;
+    return muxCollection;
+  }
+
+  /**
+   * Returns true if the module has no records after the window it returned for limit.
+   */
+  private static <T> boolean isExhausted(MuxCollection<T> muxCollection, int limit) {
+    int remaining = muxCollection.remaining();
+    if (remaining >= 0) {
+      return remaining == 0;
+    }
+    return muxCollection.colExt.getItems().size() < limit;
+  }
 
-    WebClient client = WebClient.create(mergeRequest.getVertxContext().owner());
+  @SuppressWarnings({"squid:S00107"})
+  private <T> Future<MuxCollection<T>> fetchByQuery(String module, MergeRequest<T> mergeRequest, String query,
+                                                    int offset, int limit, CodexInterfaces codexInterface,
+                                                    Function<Buffer, CollectionExtension<T>> parser) {
 
     String url = mergeRequest.getHeaders().get(XOkapiHeaders.URL) + codexInterface.getQueryPath()
     + "offset=" + offset + "&limit=" + limit;
     if (query != null) {
       url += "&query=" + URLEncoder.encode(query, StandardCharsets.UTF_8);
     }
-    logger.info("getByQuery url={}", url);
-    okapiClient.<T>getUrl(module, url, client, mergeRequest.getHeaders())
+    if (logger.isDebugEnabled()) {
+      logger.debug(MuxLog.event("getByQuery").with("module", module).with("url", url));
+    }
+    final Span span = Tracer.get(mergeRequest.getVertxContext().owner())
+      .startSpan("getByQuery", mergeRequest.getHeaders())
+      .setAttribute("module", module)
+      .setAttribute("query", query)
+      .setAttribute("offset", offset)
+      .setAttribute("limit", limit);
+    final RequestTiming timing = mergeRequest.getTiming();
+    final long start = System.nanoTime();
+    return okapiClient.getUrl(module, url, mergeRequest.getVertxContext(), span.inject(mergeRequest.getHeaders()),
+        mergeRequest.getDecoders())
       .onComplete(res -> {
-        client.close();
-        if (res.failed()) {
-          logger.warn("getByQuery. getUrl failed " + res.cause());
-          handler.handle(Future.failedFuture(res.cause()));
-        } else {
-          MuxCollection<T> muxCollection = getMuxCollection(query, parser, handler, res);
-          if (muxCollection == null) return;
-          mergeRequest.getMuxCollectionMap().put(module, muxCollection);
-          handler.handle(Future.succeededFuture());
+        if (timing != null) {
+          timing.recordRequest(module, System.nanoTime() - start, res.succeeded() ? res.result().bytes : 0);
         }
-      });
+      })
+      .onFailure(cause -> MuxLog.warnLimited(logger, module, () -> MuxLog.event("getByQuery failed")
+        .with("module", module).with("error", String.valueOf(cause))))
+      .map(muxCollection -> getMuxCollection(query, offset, limit, parser, muxCollection, span))
+      .onSuccess(muxCollection -> {
+        List<T> window = getWindow(muxCollection);
+        if (window != null) {
+          MuxMetrics.get(mergeRequest.getVertxContext().owner())
+            .recordRecordsReceived(codexInterface.getValue(), window.size());
+          span.setAttribute("records", window.size());
+          if (timing != null) {
+            timing.recordParse(module, window.size(), muxCollection.parseNanos);
+          }
+        }
+      })
+      .onComplete(res -> OkapiClient.endSpan(span, res))
+      .recover(cause -> PARTIAL_RESULTS ? Future.succeededFuture(getFailedCollection(query, cause)) : Future.failedFuture(cause));
+  }
+
+  /**
+   * Returns the result of a module that could not be reached, did not answer in time or whose
+   * circuit is open, so that it can be reported in the diagnostics while the results of the other modules are merged.
+   */
+  private static <T> MuxCollection<T> getFailedCollection(String query, Throwable cause) {
+    MuxCollection<T> muxCollection = new MuxCollection<>();
+    if (cause instanceof CircuitOpenException) {
+      muxCollection.statusCode = 503;
+    } else if (cause instanceof TimeoutException) {
+      muxCollection.statusCode = 504;
+    } else {
+      muxCollection.statusCode = 502;
+    }
+    muxCollection.message = Buffer.buffer(String.valueOf(cause.getMessage()));
+    muxCollection.query = query;
+    muxCollection.failure = cause;
+    return muxCollection;
   }
 
-  private <T> MuxCollection<T> getMuxCollection(String query, Function<String, CollectionExtension<T>> parser,
-                                                Handler<AsyncResult<Void>> handler, AsyncResult<MuxCollection<T>> res) {
-    MuxCollection<T> muxCollection = res.result();
+  private <T> MuxCollection<T> getMuxCollection(String query, int offset, int limit,
+                                                Function<Buffer, CollectionExtension<T>> parser,
+                                                MuxCollection<T> muxCollection, Span parent) {
     if (muxCollection.statusCode == 200) {
+      final Span span = parent.startChild("parse")
+        .setAttribute("streaming", muxCollection.decoder != null);
+      final long start = System.nanoTime();
       try {
-        JsonObject collectionJsonObject = new JsonObject(muxCollection.message.toString());
-        if (collectionJsonObject.getJsonObject(RESULT_INFO) == null) {
-          JsonObject resultInfo = new JsonObject();
-          resultInfo.put(TOTAL_RECORDS, collectionJsonObject.remove(TOTAL_RECORDS));
-          resultInfo.put("facets", new JsonArray());
-          resultInfo.put("diagnostics", new JsonArray());
-          collectionJsonObject.put(RESULT_INFO, resultInfo);
-        }
-        muxCollection.colExt = parser.apply(collectionJsonObject.encode());
-        muxCollection.query = query;
-      } catch (Exception e) {
-        handler.handle(Future.failedFuture(e));
-        return null;
+        muxCollection.colExt = muxCollection.decoder != null
+          ? muxCollection.decoder.getCollection() : parser.apply(muxCollection.message);
+      } finally {
+        muxCollection.parseNanos = System.nanoTime() - start;
+        span.end();
+      }
+      muxCollection.decoder = null;
+      muxCollection.query = query;
+      muxCollection.fetched = offset;
+      if (muxCollection.colExt != null && muxCollection.colExt.getItems() != null) {
+        muxCollection.fetched += muxCollection.colExt.getItems().size();
+        muxCollection.lastWindowFull = limit > 0 && muxCollection.colExt.getItems().size() >= limit;
       }
     }
     return muxCollection;
   }
 
+  /**
+   * State of one merge: the module collections in merge order and the merge over their windows.
+   */
+  private static class MergeRun<T> {
+    private final MergeRequest<T> mergeRequest;
+    private final CodexInterfaces codexInterface;
+    private final Function<Buffer, CollectionExtension<T>> parser;
+    private final List<String> modules = new ArrayList<>();
+    private final List<MuxCollection<T>> sources = new ArrayList<>();
+    private final KWayMerge<T> merge;
+    private final SourceIndex sourceIndex;
+    private final List<T> items = new ArrayList<>();
+    private final int skip;
+    private int position;
+    private int merged;
+    private long mergeNanos;
+    private int[] mergedBySource;
+
+    MergeRun(MergeRequest<T> mergeRequest, CodexInterfaces codexInterface,
+             Function<Buffer, CollectionExtension<T>> parser, Comparator<T> comparator, int skip) {
+      this.mergeRequest = mergeRequest;
+      this.codexInterface = codexInterface;
+      this.parser = parser;
+      this.merge = new KWayMerge<>(comparator);
+      this.sourceIndex = SourceIndex.get(mergeRequest.getVertxContext().owner());
+      this.skip = skip;
+    }
+
+    int end() {
+      return skip + mergeRequest.getLimit();
+    }
+  }
+
+  /**
+   * Merges the results of the modules. Each module is first asked for a window of records
+   * rather than for offset + limit records; while merging, a module whose window is used up
+   * is asked for its next window, sized by its share of the records that are still needed.
+   * If the previous page of the same search left a merge cursor that holds all modules, the
+   * modules continue from there instead of starting at offset 0.
+   */
   public <T> Future<CollectionExtension<T>> mergeSort(List<String> modules, CQLParameters<T> cqlParameters,
                                                       MergeRequest<T> mergeRequest, CodexInterfaces codexInterface,
-                                                      Function<String, CollectionExtension<T>> parser) {
+                                                      Function<Buffer, CollectionExtension<T>> parser) {
 
-    List<Future<Void>> futures = new LinkedList<>();
+    final MergeCursorStore cursorStore = MergeCursorStore.get(mergeRequest.getVertxContext().owner());
+    final String searchToken = MergeCursorStore.searchToken(mergeRequest.getHeaders(), codexInterface, modules,
+      cqlParameters.getQuery());
+
+    Map<String, String> queries = new LinkedHashMap<>();
+    final CQLNode cqlNode = cqlParameters.getCqlNode();
     for (String module : modules) {
-      final CQLNode cqlNode = cqlParameters.getCqlNode();
       if (cqlNode == null) {
-        Promise<Void> promise = Promise.promise();
-        getByQuery(module, mergeRequest, null, 0, mergeRequest.getOffset() + mergeRequest.getLimit(), codexInterface, parser, promise);
-        futures.add(promise.future());
+        queries.put(module, null);
       } else {
-        CQLNode node = filterSource(module, cqlNode);
-        if (node != null) {
-          Promise<Void> promise = Promise.promise();
-          getByQuery(module, mergeRequest, node.toCQL(), 0, mergeRequest.getOffset() + mergeRequest.getLimit(), codexInterface, parser, promise);
-          futures.add(promise.future());
+        String query = cqlParameters.getModuleQuery(module, moduleId -> {
+          CQLNode node = filterSource(moduleId, cqlNode);
+          return node != null ? node.toCQL() : null;
+        });
+        if (query != null) {
+          queries.put(module, query);
         }
       }
     }
-    return GenericCompositeFuture.all(futures)
-      .map( o ->  mergeSet2(mergeRequest, cqlParameters.getComparator()));
+    Map<String, MuxCollection<T>> taken = cursorStore.take(searchToken, mergeRequest.getOffset());
+    if (taken != null && !taken.keySet().containsAll(queries.keySet())) {
+      // a module failed on the previous page; its position is unknown, so the page is merged anew
+      logger.debug("Discarding cursor of {} that lacks a failed module", searchToken);
+      taken = null;
+    }
+    final Map<String, MuxCollection<T>> cursor = taken;
+    final MergeRun<T> run = new MergeRun<>(mergeRequest, codexInterface, parser, cqlParameters.getComparator(),
+      cursor == null ? mergeRequest.getOffset() : 0);
+    final int window = initialWindow(mergeRequest.getOffset() + mergeRequest.getLimit(), queries.size());
+    Map<String, Future<MuxCollection<T>>> futures = new LinkedHashMap<>();
+    queries.forEach((module, query) -> {
+      if (cursor != null && cursor.containsKey(module)) {
+        logger.debug("Continuing module {} from cursor", module);
+        if (mergeRequest.getTiming() != null) {
+          mergeRequest.getTiming().recordPageCache(module, "cursor");
+        }
+        futures.put(module, Future.succeededFuture(cursor.get(module)));
+      } else {
+        futures.put(module, getByQuery(module, mergeRequest, query, 0, window, codexInterface, parser));
+      }
+    });
+    return GenericCompositeFuture.all(new ArrayList<>(futures.values()))
+      .compose(o -> {
+        Throwable failure = allFailed(futures.values());
+        if (failure != null) {
+          return Future.failedFuture(failure);
+        }
+        futures.forEach((module, future) -> {
+          MuxCollection<T> muxCollection = future.result();
+          mergeRequest.getMuxCollectionMap().put(module, muxCollection);
+          run.merge.addSource(run.modules.size(), getWindow(muxCollection), getWindowStart(muxCollection),
+            muxCollection.hasMore());
+          run.modules.add(module);
+          run.sources.add(muxCollection);
+        });
+        if (mergeRequest.getTiming() != null) {
+          run.mergedBySource = new int[run.modules.size()];
+        }
+        final Span span = Tracer.get(mergeRequest.getVertxContext().owner())
+          .startSpan("mergeSet2", mergeRequest.getHeaders())
+          .setAttribute("modules", run.modules.size());
+        return mergeSet2(run).onComplete(res -> span
+          .setAttribute("records", run.merged)
+          .setAttribute("mergeMs", run.mergeNanos / 1e6)
+          .end());
+      })
+      .map(v -> {
+        CollectionExtension<T> collectionExtension = new CollectionExtension<>();
+        collectionExtension.setResultInfo(ResultInformation.createResultInfo(mergeRequest.getMuxCollectionMap()));
+        collectionExtension.setItems(run.items);
+        saveCursor(run, collectionExtension, cursorStore, searchToken);
+        MuxMetrics.get(mergeRequest.getVertxContext().owner())
+          .recordMerge(codexInterface.getValue(), run.merged, run.mergeNanos);
+        if (mergeRequest.getTiming() != null) {
+          mergeRequest.getTiming().recordMerge(run.modules, run.mergedBySource, run.mergeNanos);
+        }
+        return collectionExtension;
+      });
   }
 
-  private <T> CollectionExtension<T> mergeSet2(MergeRequest<T> mergeRequest, Comparator<T> comparator) {
-
-    CollectionExtension<T> collectionExtension = new CollectionExtension<>();
-    final Map<String, MuxCollection<T>> muxCollectionMap = mergeRequest.getMuxCollectionMap();
-    collectionExtension.setResultInfo(ResultInformation.createResultInfo(muxCollectionMap));
-    collectionExtension.setItems(new ArrayList<>());
-    int[] pointers = new int[muxCollectionMap.size()]; // all 0
-    for (int barrier = 0; barrier < mergeRequest.getOffset() + mergeRequest.getLimit(); barrier++) {
-      T minElement = null;
-      int minIndex = -1;
-      int index = 0;
-      for (MuxCollection<T> muxCollection : muxCollectionMap.values()) {
-        int pointer = pointers[index];
-        if (muxCollection.colExt != null) {
-          List<T> collection = muxCollection.colExt.getItems();
-          if (pointer < collection.size()) {
-            T element = collection.get(pointer);
-            if (minElement == null
-              || (comparator == null && pointers[minIndex] > pointers[index])
-              || (comparator != null && comparator.compare(minElement, element) > 0)) {
-              minIndex = index;
-              minElement = element;
-            }
-          }
-        }
-        index++;
+  /**
+   * Returns the failure of the first module if all modules failed, so that the search fails
+   * rather than returning an empty result; null otherwise.
+   */
+  private static <T> Throwable allFailed(Collection<Future<MuxCollection<T>>> futures) {
+    Throwable failure = null;
+    for (Future<MuxCollection<T>> future : futures) {
+      if (future.result().failure == null) {
+        return null;
+      }
+      if (failure == null) {
+        failure = future.result().failure;
+      }
+    }
+    return failure;
+  }
+
+  static int initialWindow(int end, int modules) {
+    if (!ADAPTIVE_WINDOWS || modules <= 1) {
+      return end;
+    }
+    int share = (int) Math.ceil(end * 1.25 / modules);
+    return Math.min(end, Math.max(MIN_WINDOW, share));
+  }
+
+  private static <T> List<T> getWindow(MuxCollection<T> muxCollection) {
+    return muxCollection.colExt != null ? muxCollection.colExt.getItems() : null;
+  }
+
+  private static <T> int getWindowStart(MuxCollection<T> muxCollection) {
+    List<T> window = getWindow(muxCollection);
+    return muxCollection.fetched - (window != null ? window.size() : 0);
+  }
+
+  /**
+   * Runs the merge until the page is complete or all modules are exhausted, fetching the
+   * next window of a module whenever the merge waits for it. Only the time spent merging,
+   * not the time spent waiting for windows, is added to the merge time of the run.
+   */
+  private <T> Future<Void> mergeSet2(MergeRun<T> run) {
+    final long start = System.nanoTime();
+    while (run.position < run.end()) {
+      int source = run.merge.getRefillSource();
+      if (source >= 0) {
+        run.mergeNanos += System.nanoTime() - start;
+        return refill(run, source).compose(v -> mergeSet2(run));
       }
-      if (minElement == null) {
+      if (!run.merge.hasNext()) {
         break;
       }
-      pointers[minIndex]++;
-      if (barrier >= mergeRequest.getOffset()) {
-        collectionExtension.getItems().add(minElement);
+      T element = run.merge.next();
+      if (run.position >= run.skip) {
+        if (run.mergeRequest.getEncoder() != null) {
+          run.mergeRequest.getEncoder().write(element);
+        } else {
+          run.items.add(element);
+        }
+        run.merged++;
+        if (run.mergedBySource != null) {
+          run.mergedBySource[run.merge.lastSource()]++;
+        }
+        recordSource(run, element);
       }
+      run.position++;
+    }
+    run.mergeNanos += System.nanoTime() - start;
+    return Future.succeededFuture();
+  }
+
+  private static <T> void recordSource(MergeRun<T> run, T element) {
+    final Function<T, String> idGetter = run.mergeRequest.getIdGetter();
+    if (idGetter != null && run.sourceIndex.isEnabled()) {
+      run.sourceIndex.put(run.mergeRequest.getHeaders().get(XOkapiHeaders.TENANT), run.codexInterface,
+        idGetter.apply(element), run.modules.get(run.merge.lastSource()));
     }
-    return collectionExtension;
   }
 
-  private CQLNode filterSource(String moduleId, CQLNode top) {
+  private <T> Future<Void> refill(MergeRun<T> run, int source) {
+    final String module = run.modules.get(source);
+    final MuxCollection<T> muxCollection = run.sources.get(source);
+    final int window = refillWindow(run, source);
+    return getByQuery(module, run.mergeRequest, muxCollection.query, muxCollection.fetched, window,
+      run.codexInterface, run.parser)
+      .compose(next -> {
+        List<T> items = getWindow(next);
+        if (items == null) {
+          MuxLog.warnLimited(logger, module, () -> MuxLog.event("next window failed")
+            .with("module", module).with("status", Integer.toString(next.statusCode)));
+          if (next.statusCode != 200) {
+            // report the module as failed, whether it could not be reached or answered with an
+            // error; the records it returned so far are still merged
+            muxCollection.statusCode = next.statusCode;
+            muxCollection.message = next.message;
+            muxCollection.failure = next.failure;
+          }
+        } else {
+          muxCollection.colExt.setItems(items);
+          muxCollection.fetched += items.size();
+          muxCollection.lastWindowFull = items.size() >= window;
+        }
+        run.merge.refill(source, items, items != null && !items.isEmpty() && muxCollection.hasMore());
+        return Future.<Void>succeededFuture();
+      });
+  }
+
+  /**
+   * Size of the next window of a module: its share of the records still needed for the page,
+   * in proportion to the records the modules have left, doubled to limit the number of round trips.
+   */
+  private static <T> int refillWindow(MergeRun<T> run, int source) {
+    final int needed = run.end() - run.position;
+    final int remaining = run.sources.get(source).remaining();
+    if (remaining < 0) {
+      return needed;
+    }
+    int window = needed;
+    if (ADAPTIVE_WINDOWS) {
+      long remainingAll = 0;
+      for (MuxCollection<T> muxCollection : run.sources) {
+        remainingAll += Math.max(0, muxCollection.remaining());
+      }
+      int share = (int) Math.ceil((double) needed * remaining / Math.max(1, remainingAll));
+      window = Math.max(MIN_WINDOW, 2 * share);
+    }
+    return Math.max(1, Math.min(window, Math.min(needed, remaining)));
+  }
+
+  private <T> void saveCursor(MergeRun<T> run, CollectionExtension<T> collectionExtension,
+                              MergeCursorStore cursorStore, String searchToken) {
+    final int nextOffset = run.mergeRequest.getOffset() + run.mergeRequest.getLimit();
+    if (cursorStore.isEnabled() && nextOffset < collectionExtension.getResultInfo().getTotalRecords()) {
+      Map<String, MuxCollection<T>> next = new LinkedHashMap<>();
+      for (int i = 0; i < run.sources.size(); i++) {
+        // a failed module is left out, so that the next page asks it again
+        if (run.sources.get(i).statusCode == 200) {
+          next.put(run.modules.get(i), remainder(run.sources.get(i), run.merge.position(i)));
+        }
+      }
+      cursorStore.put(searchToken, nextOffset, next);
+    }
+  }
+
+  /**
+   * Returns a copy of muxCollection whose window only holds the records from position on.
+   */
+  private static <T> MuxCollection<T> remainder(MuxCollection<T> muxCollection, int position) {
+    if (muxCollection.colExt == null) {
+      return muxCollection;
+    }
+    MuxCollection<T> rest = new MuxCollection<>();
+    rest.statusCode = muxCollection.statusCode;
+    rest.message = muxCollection.message;
+    rest.query = muxCollection.query;
+    rest.fetched = muxCollection.fetched;
+    rest.lastWindowFull = muxCollection.lastWindowFull;
+    rest.colExt = new CollectionExtension<>();
+    rest.colExt.setResultInfo(muxCollection.colExt.getResultInfo());
+    List<T> items = muxCollection.colExt.getItems() != null ? muxCollection.colExt.getItems() : new ArrayList<>();
+    int from = Math.max(0, Math.min(items.size(), position - getWindowStart(muxCollection)));
+    rest.colExt.setItems(new ArrayList<>(items.subList(from, items.size())));
+    return rest;
+  }
+
+  /**
+   * Returns the query for module, reduced by its source term, or null if the module is filtered
+   * out. top is not modified: CqlUtil.reducer builds new nodes for the parts it changes.
+   */
+  static CQLNode filterSource(String moduleId, CQLNode top) {
 
     CQLRelation relation = new CQLRelation("=");
 
@@ -218,10 +594,10 @@ public class Multiplexer implements CodexInstances {
       return top;
     } else {
       if (!CqlUtil.eval(top, source, indexTermComparator)) {
-        logger.info("Filter out module {}", moduleId);
+        logger.debug("Filter out module {}", moduleId);
         return null;
       }
-      logger.info("Reducing query for module {}", moduleId);
+      logger.debug("Reducing query for module {}", moduleId);
       return CqlUtil.reducer(top, source, indexComparator);
     }
   }
@@ -230,7 +606,7 @@ public class Multiplexer implements CodexInstances {
   @Validate
   public void getCodexInstances(String query, int offset, int limit, String lang, Map<String, String> okapiHeaders,
                                 Handler<AsyncResult<Response>> handler, Context vertxContext) {
-    logger.info("Codex.mux getCodexInstances");
+    logger.debug("Codex.mux getCodexInstances");
     OkapiParams okapiParams;
     try{
       okapiParams = new OkapiParams(okapiHeaders);
@@ -241,14 +617,13 @@ public class Multiplexer implements CodexInstances {
       return;
     }
 
+    final RequestTiming timing = RequestTiming.of(okapiHeaders);
     okapiClient.getModuleList(vertxContext, okapiParams, CodexInterfaces.CODEX)
-      .compose(moduleList -> getInstanceCollectionExtension(query, offset, limit, okapiHeaders, vertxContext, moduleList))
-      .map(instanceCollectionExtension -> {
-        handler.handle(Future.succeededFuture(GetCodexInstancesResponse.respond200WithApplicationJson(
-          new InstanceCollection()
-            .withInstances(instanceCollectionExtension != null ? instanceCollectionExtension.getItems() : null)
-            .withResultInfo(instanceCollectionExtension != null ? instanceCollectionExtension.getResultInfo() : null))));
-          return null;
+      .compose(moduleList -> getInstanceCollection(query, offset, limit, okapiHeaders, vertxContext, moduleList,
+        timing))
+      .map(instanceCollection -> {
+        handler.handle(Future.succeededFuture(jsonResponse(instanceCollection)));
+        return null;
       })
       .otherwise(throwable -> {
         if (throwable instanceof GetModulesFailException){
@@ -265,32 +640,104 @@ public class Multiplexer implements CodexInstances {
       });
   }
 
-  private Future<CollectionExtension<Instance>> getInstanceCollectionExtension(String query, int offset, int limit,
-    Map<String, String> okapiHeaders, Context vertxContext, List<String> moduleList) {
+  /**
+   * Returns the encoded instance collection of a search; the merged instances are encoded as they
+   * are merged rather than collected first.
+   */
+  @SuppressWarnings({"squid:S00107"})
+  private Future<Buffer> getInstanceCollection(String query, int offset, int limit,
+    Map<String, String> okapiHeaders, Context vertxContext, List<String> moduleList, RequestTiming timing) {
 
     CQLParameters<Instance> cqlParameters = new CQLParameters<>(query);
-    cqlParameters.setComparator(InstanceComparator.get(cqlParameters.getCQLSortNode()));
+    cqlParameters.setComparator(Instance.class, InstanceComparator::get);
 
+    final CollectionEncoder<Instance> encoder = new CollectionEncoder<>("instances");
     final MergeRequest<Instance> mergeRequest = new MergeRequest.MergeRequestBuilder<Instance>()
       .setLimit(limit)
       .setOffset(offset)
       .setHeaders(okapiHeaders)
       .setVertxContext(vertxContext)
       .setMuxCollectionMap(new LinkedHashMap<>())
+      .setIdGetter(Instance::getId)
+      .setEncoder(encoder)
+      .setDecoders(InstanceCollectionParser::streamInstanceCollection)
+      .setTiming(timing)
       .build();
 
-    return mergeSort(moduleList, cqlParameters, mergeRequest, CodexInterfaces.CODEX,
-        InstanceCollectionParser::parseInstanceCollection).compose(instanceCollectionExtension -> {
-          analyzeResult(mergeRequest.getMuxCollectionMap(), instanceCollectionExtension);
-          return Future.succeededFuture(instanceCollectionExtension);
-        });
+    return searchCollection(moduleList, cqlParameters, mergeRequest, CodexInterfaces.CODEX,
+      InstanceCollectionParser::parseInstanceCollection);
+  }
+
+  /**
+   * Returns the encoded collection of a search of the modules of codexInterface, encoded by the
+   * encoder of mergeRequest.
+   *
+   * <p>The result is served from the {@link SearchResultCache} if it is there; otherwise the search
+   * runs, shared with an equal search in flight through the {@link SearchCoalescer}, and a result
+   * that all modules contributed to is cached. A timed search neither uses the cache nor joins an
+   * equal search, so that the timing is that of this search.
+   * @param modules modules that are searched
+   * @param cqlParameters the query
+   * @param mergeRequest the page and the state of the merge
+   * @param codexInterface interface that is searched
+   * @param parser parses a collection of a module
+   */
+  public <T> Future<Buffer> searchCollection(List<String> modules, CQLParameters<T> cqlParameters,
+                                             MergeRequest<T> mergeRequest, CodexInterfaces codexInterface,
+                                             Function<Buffer, CollectionExtension<T>> parser) {
+    final Context vertxContext = mergeRequest.getVertxContext();
+    final CollectionEncoder<T> encoder = mergeRequest.getEncoder();
+    final RequestTiming timing = mergeRequest.getTiming();
+    if (timing != null) {
+      timing.recordModuleList();
+      return mergeSort(modules, cqlParameters, mergeRequest, codexInterface, parser).map(collectionExtension -> {
+        analyzeResult(mergeRequest.getMuxCollectionMap(), collectionExtension);
+        timing.addDiagnostics(mergeRequest.getMuxCollectionMap(), collectionExtension.getResultInfo(),
+          CircuitBreakers.get(vertxContext.owner()));
+        return encoder.finish(collectionExtension.getResultInfo());
+      });
+    }
+
+    final Map<String, String> okapiHeaders = mergeRequest.getHeaders();
+    final SearchResultCache resultCache = SearchResultCache.get(vertxContext.owner());
+    final String resultKey = SearchResultCache.key(okapiHeaders, codexInterface, modules,
+      cqlParameters.getCanonicalQuery(), mergeRequest.getOffset(), mergeRequest.getLimit());
+    Buffer cached = resultCache.get(resultKey);
+    if (cached != null) {
+      logger.debug("Search result cache hit for {}", resultKey);
+      return Future.succeededFuture(cached);
+    }
+
+    return SearchCoalescer.get(vertxContext.owner()).coalesce(resultKey, () ->
+      mergeSort(modules, cqlParameters, mergeRequest, codexInterface, parser).map(collectionExtension -> {
+        analyzeResult(mergeRequest.getMuxCollectionMap(), collectionExtension);
+        Buffer collection = encoder.finish(collectionExtension.getResultInfo());
+        if (resultCache.isEnabled() && ResultInformation.isComplete(mergeRequest.getMuxCollectionMap())) {
+          resultCache.put(resultKey, okapiHeaders.get(XOkapiHeaders.TENANT), collection);
+        }
+        return collection;
+      }));
+  }
+
+  /**
+   * Returns a 200 response with an encoded JSON body, which RMB sends as it is. A body from
+   * {@link CollectionEncoder#finish} is handed over without copying its bytes.
+   */
+  public static Response jsonResponse(Buffer body) {
+    final byte[] data = CollectionEncoder.array(body);
+    BinaryOutStream entity = new BinaryOutStream();
+    entity.setData(data != null ? data : body.getBytes());
+    return Response.status(200)
+      .header("Content-Type", "application/json")
+      .entity(entity)
+      .build();
   }
 
   @Override
   public void getCodexInstancesById(String id, String lang,
     Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> handler,
     Context vertxContext) {
-    logger.info("Codex.mux getCodexInstancesById");
+    logger.debug("Codex.mux getCodexInstancesById");
 
     OkapiParams okapiParams;
     try{
@@ -306,13 +753,9 @@ public class Multiplexer implements CodexInstances {
     }
 
     okapiClient.getModuleList(vertxContext, okapiParams, CodexInterfaces.CODEX)
-      .compose(modules -> okapiClient.getOptionalObjects(vertxContext, okapiHeaders, modules,
-        okapiHeaders.get(XOkapiHeaders.URL) + "/codex-instances/" + id , Instance.class))
-      .map(optionalInstances -> {
-        Optional<Instance> instance = optionalInstances
-          .filter(Optional::isPresent)
-          .map(Optional::get)
-          .findFirst();
+      .compose(modules -> okapiClient.getObjectById(vertxContext, okapiHeaders, modules, CodexInterfaces.CODEX,
+        id, okapiHeaders.get(XOkapiHeaders.URL) + "/codex-instances/" + id , Instance.class))
+      .map(instance -> {
         if (instance.isEmpty()) {
           handler.handle(Future.succeededFuture(CodexInstances.GetCodexInstancesByIdResponse.respond404WithTextPlain(id)));
         } else {
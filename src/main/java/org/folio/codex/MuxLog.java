@@ -0,0 +1,100 @@
+package org.folio.codex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.StringMapMessage;
+
+/**
+ * Structured logging of the multiplexer. Events are {@link StringMapMessage}s, which the JSON
+ * layout of log4j2-json.properties writes as JSON objects; callers build them only when they are
+ * logged.
+ *
+ * <p>Warnings are limited per key, usually a module, to codex.mux.log.warn.maxPerMinute per minute,
+ * so that a failing module cannot flood the log. The first warning logged after some were
+ * dropped says how many were suppressed.
+ */
+public class MuxLog {
+
+  static final int MAX_EVENTS = Integer.getInteger("codex.mux.log.warn.maxPerMinute", 10);
+  static final int MAX_KEYS = 1000;
+  static final int MAX_FIELD_LENGTH = 500;
+
+  private static final MuxLog WARNINGS = new MuxLog(MAX_EVENTS, 60000L);
+
+  private static final class Window {
+    private long start;
+    private int events;
+    private long suppressed;
+  }
+
+  private final int maxEvents;
+  private final long interval;
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+  MuxLog(int maxEvents, long interval) {
+    this.maxEvents = maxEvents;
+    this.interval = interval;
+  }
+
+  /**
+   * Logs the warning built by event, unless key has used up its warnings for the minute.
+   */
+  public static void warnLimited(Logger logger, String key, Supplier<StringMapMessage> event) {
+    if (!logger.isWarnEnabled()) {
+      return;
+    }
+    final long suppressed = WARNINGS.acquire(key, System.currentTimeMillis());
+    if (suppressed < 0) {
+      return;
+    }
+    StringMapMessage message = event.get();
+    if (suppressed > 0) {
+      message.with("suppressed", Long.toString(suppressed));
+    }
+    logger.warn(message);
+  }
+
+  /**
+   * Returns a structured event with the given name.
+   */
+  public static StringMapMessage event(String name) {
+    return new StringMapMessage().with("event", name);
+  }
+
+  /**
+   * Returns value as a string of at most {@link #MAX_FIELD_LENGTH} characters, so that large
+   * bodies are not logged in full.
+   */
+  public static String truncate(Object value) {
+    final String s = String.valueOf(value);
+    return s.length() <= MAX_FIELD_LENGTH ? s : s.substring(0, MAX_FIELD_LENGTH) + "...";
+  }
+
+  /**
+   * Returns the number of events of key suppressed since the last one that was let through, or
+   * -1 if this event must be suppressed.
+   */
+  long acquire(String key, long now) {
+    if (windows.size() > MAX_KEYS) {
+      windows.clear();
+    }
+    final Window window = windows.computeIfAbsent(String.valueOf(key), k -> new Window());
+    synchronized (window) {
+      if (now - window.start >= interval) {
+        window.start = now;
+        window.events = 0;
+      }
+      if (window.events >= maxEvents) {
+        window.suppressed++;
+        return -1;
+      }
+      window.events++;
+      final long suppressed = window.suppressed;
+      window.suppressed = 0;
+      return suppressed;
+    }
+  }
+}
@@ -5,13 +5,20 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
@@ -19,10 +26,20 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.ext.web.codec.BodyCodec;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import org.folio.codex.breaker.CircuitBreaker;
+import org.folio.codex.breaker.CircuitBreakers;
+import org.folio.codex.exception.CircuitOpenException;
 import org.folio.codex.exception.GetModulesFailException;
+import org.folio.codex.hedge.HedgePolicy;
+import org.folio.codex.metrics.MuxMetrics;
+import org.folio.codex.parser.StreamingCollectionDecoder;
+import org.folio.codex.tracing.Span;
+import org.folio.codex.tracing.Tracer;
 import org.folio.common.OkapiParams;
 import org.folio.okapi.common.GenericCompositeFuture;
 import org.folio.okapi.common.XOkapiHeaders;
@@ -31,6 +48,85 @@ import org.folio.util.FutureUtils;
 public class OkapiClient {
   private static final Logger logger = LogManager.getLogger(OkapiClient.class);
 
+  private static final String WEB_CLIENT_KEY = "webClient";
+
+  static final int HTTP_MAX_POOL_SIZE = Integer.getInteger("codex.mux.http.maxPoolSize", 50);
+  static final int HTTP_MAX_WAIT_QUEUE_SIZE = Integer.getInteger("codex.mux.http.maxWaitQueueSize", -1);
+  static final boolean HTTP_KEEP_ALIVE = Boolean.parseBoolean(System.getProperty("codex.mux.http.keepAlive", "true"));
+  static final int HTTP_KEEP_ALIVE_TIMEOUT = Integer.getInteger("codex.mux.http.keepAliveTimeout", 60);
+  static final boolean HTTP_PIPELINING = Boolean.getBoolean("codex.mux.http.pipelining");
+  static final int HTTP_PIPELINING_LIMIT = Integer.getInteger("codex.mux.http.pipeliningLimit", 10);
+  static final boolean HTTP2 = Boolean.getBoolean("codex.mux.http2");
+  static final int HTTP2_MAX_POOL_SIZE = Integer.getInteger("codex.mux.http2.maxPoolSize", 4);
+  static final int HTTP2_MULTIPLEXING_LIMIT = Integer.getInteger("codex.mux.http2.multiplexingLimit", 100);
+  static final int HTTP_CONNECT_TIMEOUT = Integer.getInteger("codex.mux.http.connectTimeout", 5000);
+  static final long HTTP_TIMEOUT = Long.getLong("codex.mux.http.timeout", 30000L);
+  static final boolean HTTP_STREAMING = Boolean.parseBoolean(System.getProperty("codex.mux.http.streaming", "true"));
+
+  private static final String HTTP_TIMEOUT_PREFIX = "codex.mux.http.timeout.";
+  private static final Map<String, Long> moduleTimeouts = new ConcurrentHashMap<>();
+
+  static WebClientOptions getWebClientOptions() {
+    WebClientOptions options = new WebClientOptions()
+      .setMaxPoolSize(HTTP_MAX_POOL_SIZE)
+      .setMaxWaitQueueSize(HTTP_MAX_WAIT_QUEUE_SIZE)
+      .setKeepAlive(HTTP_KEEP_ALIVE)
+      .setKeepAliveTimeout(HTTP_KEEP_ALIVE_TIMEOUT)
+      .setPipelining(HTTP_PIPELINING)
+      .setPipeliningLimit(HTTP_PIPELINING_LIMIT)
+      .setConnectTimeout(HTTP_CONNECT_TIMEOUT);
+    if (HTTP2) {
+      options
+        .setProtocolVersion(HttpVersion.HTTP_2)
+        .setHttp2ClearTextUpgrade(true)
+        .setHttp2MaxPoolSize(HTTP2_MAX_POOL_SIZE)
+        .setHttp2MultiplexingLimit(HTTP2_MULTIPLEXING_LIMIT)
+        .setHttp2KeepAliveTimeout(HTTP_KEEP_ALIVE_TIMEOUT);
+    }
+    return options;
+  }
+
+  /**
+   * Returns the timeout in milliseconds for requests to a module: the value of the
+   * codex.mux.http.timeout.&lt;prefix&gt; system property with the longest prefix of the module id,
+   * e.g. codex.mux.http.timeout.mod-codex-ekb, or codex.mux.http.timeout if there is none.
+   * 0 means no timeout.
+   * @param module module id
+   */
+  static long getTimeout(String module) {
+    return moduleTimeouts.computeIfAbsent(module, id -> {
+      String match = "";
+      long timeout = HTTP_TIMEOUT;
+      for (String name : System.getProperties().stringPropertyNames()) {
+        if (name.startsWith(HTTP_TIMEOUT_PREFIX)) {
+          String prefix = name.substring(HTTP_TIMEOUT_PREFIX.length());
+          if (id.startsWith(prefix) && prefix.length() > match.length()) {
+            match = prefix;
+            timeout = Long.getLong(name, HTTP_TIMEOUT);
+          }
+        }
+      }
+      return timeout;
+    });
+  }
+
+  /**
+   * Forgets the module timeouts, so that they are read from the system properties again.
+   */
+  static void clearTimeouts() {
+    moduleTimeouts.clear();
+  }
+
+  /**
+   * Returns the WebClient that is shared by all outbound requests of a Vert.x instance.
+   * The client is created on first use with the pool settings given by the
+   * codex.mux.http.* system properties and is never closed by callers.
+   * @param vertx Vert.x instance that owns the client
+   */
+  public static WebClient getWebClient(Vertx vertx) {
+    return SharedObjects.get(vertx, WEB_CLIENT_KEY, () -> WebClient.create(vertx, getWebClientOptions()));
+  }
+
   /**
    * Sends a request to each module from modules list, if request is successful then returned object is parsed as
    * a responseClass and wrapped in Optional, if request fails then Optional.empty() is returned for this module
@@ -52,15 +148,122 @@ public class OkapiClient {
       .map(compositeFuture -> futures.stream().map(Future::result));
   }
 
+  /**
+   * Looks up the object with id like {@link #getFirstHit}, but first asks only the module that
+   * returned the id in an earlier search, as recorded in the {@link SourceIndex}. If that module
+   * does not have the object, or the id is unknown, all modules are asked.
+   * @param vertxContext vertxContext
+   * @param headers headers that will be sent to modules
+   * @param modules list of modules that provide codexInterface
+   * @param codexInterface interface of the lookup
+   * @param id id of the object
+   * @param url url of requests
+   * @param responseClass class of retrieved object
+   */
+  @SuppressWarnings({"squid:S00107"})
+  public <T> Future<Optional<T>> getObjectById(Context vertxContext, Map<String, String> headers, List<String> modules,
+                                               CodexInterfaces codexInterface, String id, String url,
+                                               Class<T> responseClass) {
+    final SourceIndex index = SourceIndex.get(vertxContext.owner());
+    final String tenant = headers.get(XOkapiHeaders.TENANT);
+    final String module = index.lookup(tenant, codexInterface, id);
+    if (module == null || !modules.contains(module)) {
+      return getFirstHit(vertxContext, headers, modules, url, responseClass)
+        .map(hit -> {
+          hit.ifPresent(h -> index.put(tenant, codexInterface, id, h.module));
+          return hit.map(Hit::getObject);
+        });
+    }
+    logger.debug("Routing lookup of {} to module {}", id, module);
+    List<String> others = new ArrayList<>(modules);
+    others.remove(module);
+    return getFirstHit(vertxContext, headers, List.of(module), url, responseClass)
+      .recover(cause -> others.isEmpty() ? Future.failedFuture(cause) : Future.succeededFuture(Optional.empty()))
+      .compose(routed -> {
+        if (routed.isPresent()) {
+          return Future.succeededFuture(routed.map(Hit::getObject));
+        }
+        index.remove(tenant, codexInterface, id);
+        return getFirstHit(vertxContext, headers, others, url, responseClass)
+          .map(hit -> {
+            hit.ifPresent(h -> index.put(tenant, codexInterface, id, h.module));
+            return hit.map(Hit::getObject);
+          });
+      });
+  }
+
+  private static final class Hit<T> {
+    private final String module;
+    private final T object;
+
+    private Hit(String module, T object) {
+      this.module = module;
+      this.object = object;
+    }
+
+    private T getObject() {
+      return object;
+    }
+  }
+
+  /**
+   * Sends a request to each module from modules list and completes with the first object that a module
+   * returns with status 200, together with that module, without waiting for the other modules; their
+   * responses are discarded unparsed. Completes with Optional.empty() once all modules have answered
+   * without the object. A module that fails only counts as a negative answer; the lookup fails if all
+   * modules fail.
+   */
+  private <T> Future<Optional<Hit<T>>> getFirstHit(Context vertxContext, Map<String, String> headers,
+                                                   List<String> modules, String url, Class<T> responseClass) {
+    if (modules.isEmpty()) {
+      return Future.succeededFuture(Optional.empty());
+    }
+    Promise<Optional<Hit<T>>> promise = Promise.promise();
+    AtomicInteger answered = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    for (String module : modules) {
+      getObjectUrl(module, url, vertxContext, headers).onComplete(res -> {
+        if (promise.future().isComplete()) {
+          logger.debug("getFirstHit. Discarding late response of module {}", module);
+          return;
+        }
+        if (res.succeeded() && res.result().statusCode == 200) {
+          try {
+            T object = Json.decodeValue(res.result().message, responseClass);
+            promise.tryComplete(Optional.of(new Hit<>(module, object)));
+            return;
+          } catch (Exception e) {
+            MuxLog.warnLimited(logger, module, () -> MuxLog.event("invalid object")
+              .with("module", module).with("error", MuxLog.truncate(e.getMessage())));
+            failed.incrementAndGet();
+          }
+        } else if (res.failed()) {
+          MuxLog.warnLimited(logger, module, () -> MuxLog.event("getObject failed")
+            .with("module", module).with("error", String.valueOf(res.cause().getMessage())));
+          failed.incrementAndGet();
+        }
+        if (answered.incrementAndGet() == modules.size()) {
+          if (failed.get() == modules.size()) {
+            promise.tryFail(res.failed() ? res.cause() : new IllegalStateException("No module returned a valid object"));
+          } else {
+            promise.tryComplete(Optional.empty());
+          }
+        }
+      });
+    }
+    return promise.future();
+  }
+
   private <T> Future<Optional<T>> getObject(String module, Context vertxContext, Map<String, String> okapiHeaders,
                                             String url, Class<T> responseClass) {
     Promise<Optional<T>> promise = Promise.promise();
-    WebClient client = WebClient.create(vertxContext.owner());
-    logger.info("getObject url={}", url);
-    getUrl(module, url, client, okapiHeaders).onComplete(res -> {
-      client.close();
+    if (logger.isDebugEnabled()) {
+      logger.debug(MuxLog.event("getObject").with("module", module).with("url", url));
+    }
+    getObjectUrl(module, url, vertxContext, okapiHeaders).onComplete(res -> {
       if (res.failed()) {
-        logger.warn("getObject. getUrl failed " + res.cause());
+        MuxLog.warnLimited(logger, module, () -> MuxLog.event("getObject failed")
+          .with("module", module).with("error", String.valueOf(res.cause())));
         promise.handle(Future.failedFuture(res.cause()));
       } else {
         Multiplexer.MuxCollection<?> mc = res.result();
@@ -80,34 +283,191 @@ public class OkapiClient {
     return promise.future();
   }
 
-  public <T> Future<Multiplexer.MuxCollection<T>> getUrl(String module, String url, WebClient client,
+  /**
+   * Gets an object from module in a getObject span.
+   */
+  private <T> Future<Multiplexer.MuxCollection<T>> getObjectUrl(String module, String url, Context vertxContext,
+                                                                Map<String, String> headers) {
+    final Span span = Tracer.get(vertxContext.owner()).startSpan("getObject", headers)
+      .setAttribute("module", module)
+      .setAttribute("url", url);
+    return this.<T>getUrl(module, url, vertxContext, span.inject(headers))
+      .onComplete(res -> endSpan(span, res));
+  }
+
+  /**
+   * Ends the span of a request to a module, with the status and size of the response.
+   */
+  static <T> void endSpan(Span span, AsyncResult<Multiplexer.MuxCollection<T>> res) {
+    if (res.succeeded()) {
+      span.setAttribute("status", res.result().statusCode)
+        .setAttribute("bytes", res.result().bytes);
+    } else {
+      span.setAttribute("error", String.valueOf(res.cause().getMessage()));
+    }
+    span.end();
+  }
+
+  /**
+   * Gets url from module. Calls are guarded by the circuit breaker of the module: while it is open
+   * the returned future fails with {@link CircuitOpenException} without sending a request.
+   * Transport failures and status codes from 500 count as failed calls.
+   */
+  public <T> Future<Multiplexer.MuxCollection<T>> getUrl(String module, String url, Context vertxContext,
                       Map<String, String> okapiHeaders) {
-    Promise<HttpResponse<Buffer>> responsePromise = Promise.promise();
-    HttpRequest<Buffer> request = client.getAbs(url);
+    return getUrl(module, url, vertxContext, okapiHeaders, null);
+  }
+
+  /**
+   * Gets a collection from module like {@link #getUrl(String, String, Context, Map)}, decoding a 200
+   * response while it is received with a decoder from decoders, unless codex.mux.http.streaming is
+   * false. The decoder is left in the returned collection.
+   * @param decoders creates a decoder for each request sent, or null to buffer the body
+   */
+  public <T> Future<Multiplexer.MuxCollection<T>> getUrl(String module, String url, Context vertxContext,
+                      Map<String, String> okapiHeaders, Supplier<StreamingCollectionDecoder<T>> decoders) {
+    final CircuitBreakers breakers = CircuitBreakers.get(vertxContext.owner());
+    if (!breakers.isEnabled()) {
+      return sendHedged(module, url, vertxContext, okapiHeaders, decoders);
+    }
+    final CircuitBreaker breaker = breakers.forModule(module);
+    if (!breaker.tryAcquire()) {
+      logger.debug("Circuit of module {} is open", module);
+      return Future.failedFuture(new CircuitOpenException("Circuit open for module " + module));
+    }
+    final long start = System.currentTimeMillis();
+    return this.<T>sendHedged(module, url, vertxContext, okapiHeaders, decoders)
+      .onComplete(res -> breaker.record(res.failed() || res.result().statusCode >= 500,
+        System.currentTimeMillis() - start));
+  }
+
+  /**
+   * Sends the request and, if the module has not answered after the delay given by the
+   * {@link HedgePolicy}, sends it once more; the first response wins.
+   */
+  private <T> Future<Multiplexer.MuxCollection<T>> sendHedged(String module, String url, Context vertxContext,
+                                                              Map<String, String> okapiHeaders,
+                                                              Supplier<StreamingCollectionDecoder<T>> decoders) {
+    final HedgePolicy policy = HedgePolicy.get(vertxContext.owner());
+    if (!policy.isEnabled()) {
+      return sendUrl(module, url, vertxContext, okapiHeaders, decoders);
+    }
+    final long delay = policy.getDelay(module);
+    final long timeout = getTimeout(module);
+    if (delay < 0 || (timeout > 0 && delay >= timeout)) {
+      return sendTimed(policy, module, url, vertxContext, okapiHeaders, decoders);
+    }
+    final Promise<Multiplexer.MuxCollection<T>> promise = Promise.promise();
+    final AtomicInteger outstanding = new AtomicInteger(1);
+    final Handler<AsyncResult<Multiplexer.MuxCollection<T>>> handler = res -> {
+      if (res.succeeded()) {
+        promise.tryComplete(res.result());
+      } else if (outstanding.decrementAndGet() == 0) {
+        promise.tryFail(res.cause());
+      }
+    };
+    this.<T>sendTimed(policy, module, url, vertxContext, okapiHeaders, decoders).onComplete(handler);
+    final Vertx vertx = vertxContext.owner();
+    final long timerId = vertx.setTimer(delay, id -> {
+      if (!promise.future().isComplete() && policy.tryHedge()) {
+        logger.debug("Hedging request to module {} after {} ms", module, delay);
+        outstanding.incrementAndGet();
+        this.<T>sendTimed(policy, module, url, vertxContext, okapiHeaders, decoders).onComplete(handler);
+      }
+    });
+    return promise.future().onComplete(res -> vertx.cancelTimer(timerId));
+  }
+
+  private <T> Future<Multiplexer.MuxCollection<T>> sendTimed(HedgePolicy policy, String module, String url,
+                                                             Context vertxContext, Map<String, String> okapiHeaders,
+                                                             Supplier<StreamingCollectionDecoder<T>> decoders) {
+    final long start = System.currentTimeMillis();
+    return this.<T>sendUrl(module, url, vertxContext, okapiHeaders, decoders)
+      .onSuccess(mc -> policy.getHistogram(module).record(System.currentTimeMillis() - start));
+  }
+
+  private <T> Future<Multiplexer.MuxCollection<T>> sendUrl(String module, String url, Context vertxContext,
+                                                           Map<String, String> okapiHeaders,
+                                                           Supplier<StreamingCollectionDecoder<T>> decoders) {
+    HttpRequest<Buffer> request = getWebClient(vertxContext.owner()).getAbs(url);
     okapiHeaders.forEach(request::putHeader);
+    final long timeout = getTimeout(module);
+    if (timeout > 0) {
+      request.timeout(timeout);
+    }
     request
       .putHeader(XOkapiHeaders.MODULE_ID, module)
-      .putHeader("Accept", "application/json")
-      .send(responsePromise);
+      .putHeader("Accept", "application/json");
+    final MuxMetrics metrics = MuxMetrics.get(vertxContext.owner());
+    final long start = System.nanoTime();
+    if (HTTP_STREAMING && decoders != null) {
+      final StreamingCollectionDecoder<T> decoder = decoders.get();
+      Promise<HttpResponse<Void>> responsePromise = Promise.promise();
+      request.as(BodyCodec.pipe(decoder)).send(responsePromise);
+      return responsePromise.future()
+        .map(res -> {
+          Multiplexer.MuxCollection<T> mc = new Multiplexer.MuxCollection<>();
+          mc.statusCode = res.statusCode();
+          mc.message = res.statusCode() == 200 ? Buffer.buffer() : decoder.getRaw();
+          mc.decoder = decoder;
+          mc.bytes = decoder.getBytesReceived();
+          return mc;
+        })
+        .onComplete(res -> recordRequest(metrics, module, start, res));
+    }
+    Promise<HttpResponse<Buffer>> responsePromise = Promise.promise();
+    request.send(responsePromise);
     return responsePromise.future()
       .map(
         res -> {
           Multiplexer.MuxCollection<T> mc = new Multiplexer.MuxCollection<>();
           mc.message = res.body() != null ? res.body() : Buffer.buffer();
           mc.statusCode = res.statusCode();
+          mc.bytes = mc.message.length();
           return mc;
-        });
+        })
+      .onComplete(res -> recordRequest(metrics, module, start, res));
+  }
+
+  private static <T> void recordRequest(MuxMetrics metrics, String module, long start,
+                                        AsyncResult<Multiplexer.MuxCollection<T>> res) {
+    final String status;
+    if (res.succeeded()) {
+      status = Integer.toString(res.result().statusCode);
+    } else {
+      status = res.cause() instanceof TimeoutException ? "timeout" : "error";
+    }
+    metrics.recordModuleRequest(module, status, System.nanoTime() - start, res.succeeded() ? res.result().bytes : -1);
   }
 
   /**
    * Method to return a future with module names instead of using handler.
+   * Module lists are served from the {@link ModuleListCache} of the Vert.x instance when possible.
    */
 
   public Future<List<String>> getModuleList(Context vertxContext, OkapiParams okapiParams,
                                             final CodexInterfaces supportedInterface) {
-    WebClient client = WebClient.create(vertxContext.owner());
+    final long start = System.nanoTime();
+    final Span span = Tracer.get(vertxContext.owner()).startSpan("getModuleList", okapiParams.getHeaders())
+      .setAttribute("interface", supportedInterface.getValue());
+    return ModuleListCache.get(vertxContext.owner()).getModules(okapiParams, supportedInterface,
+      () -> lookupModuleList(vertxContext, okapiParams, supportedInterface))
+      .onComplete(res -> {
+        MuxMetrics.get(vertxContext.owner()).recordModuleList(supportedInterface.getValue(), System.nanoTime() - start);
+        if (res.succeeded()) {
+          span.setAttribute("modules", String.join(",", res.result()));
+        } else {
+          span.setAttribute("error", String.valueOf(res.cause().getMessage()));
+        }
+        span.end();
+      });
+  }
+
+  private Future<List<String>> lookupModuleList(Context vertxContext, OkapiParams okapiParams,
+                                                final CodexInterfaces supportedInterface) {
+    WebClient client = getWebClient(vertxContext.owner());
     String requestURI = "/_/proxy/tenants/" + okapiParams.getTenant() + "/interfaces/" + supportedInterface.getValue();
-    logger.info("codex.mux getModuleList uri={} with parameters {}", requestURI, okapiParams);
+    logger.debug("codex.mux getModuleList uri={} with parameters {}", requestURI, okapiParams);
     HttpRequest<Buffer> request = client.get(okapiParams.getPort(), okapiParams.getHost(),
       requestURI);
     okapiParams.getHeaders().forEach(request::putHeader);
@@ -122,7 +482,7 @@ public class OkapiClient {
           throw new GetModulesFailException("Get " + requestURI + " with parameters " + okapiParams + " returned status " + response.statusCode());
         }
         Buffer buffer = response.body() != null ? response.body() : Buffer.buffer();
-        logger.info("codex.mux getModuleList got {}", buffer);
+        logger.debug("codex.mux getModuleList got {}", buffer);
         List<String> moduleList = new LinkedList<>();
         JsonArray moduleArray = readJsonArray(buffer);
         for (int i = 0; i < moduleArray.size(); i++) {
@@ -134,10 +494,7 @@ public class OkapiClient {
         }
         return moduleList;
       })
-      .onComplete(result -> {
-        client.close();
-        completePromiseWithResult(promise, result);
-      });
+      .onComplete(result -> completePromiseWithResult(promise, result));
     return FutureUtils.wrapExceptions(promise.future(), GetModulesFailException.class);
   }
 
@@ -0,0 +1,189 @@
+package org.folio.codex;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.Vertx;
+
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+/**
+ * Cache of the records that the modules returned for a query, keyed by {@link SearchScope}, module
+ * and reduced query.
+ *
+ * <p>Each entry holds the longest prefix of the module's result fetched so far, so a window that
+ * lies within the prefix is served without asking the module, and a window that reaches past it
+ * only needs the missing tail. Windows that continue the prefix are appended to it. Entries expire
+ * ttl milliseconds after the first window was stored; the cache holds at most maxRecords records,
+ * evicting the least recently used entries first.
+ */
+public class PageCache {
+
+  static final long TTL = Long.getLong("codex.mux.pages.cache.ttl", 30000L);
+  static final int MAX_RECORDS = Integer.getInteger("codex.mux.pages.cache.maxRecords", 100000);
+
+  private static final String CACHE_KEY = "pageCache";
+
+  /**
+   * Records of a cached prefix that fall in a requested window.
+   */
+  public static class Window<T> {
+    private final List<T> items;
+    private final ResultInfo resultInfo;
+    private final boolean complete;
+
+    Window(List<T> items, ResultInfo resultInfo, boolean complete) {
+      this.items = items;
+      this.resultInfo = resultInfo;
+      this.complete = complete;
+    }
+
+    public List<T> getItems() {
+      return items;
+    }
+
+    public ResultInfo getResultInfo() {
+      return resultInfo;
+    }
+
+    /**
+     * Returns true if the window is complete, i.e. the module need not be asked for more of it.
+     */
+    public boolean isComplete() {
+      return complete;
+    }
+  }
+
+  private static class Prefix {
+    private final List<Object> items = new ArrayList<>();
+    private final long created;
+    private ResultInfo resultInfo;
+    private boolean exhausted;
+
+    Prefix(long created) {
+      this.created = created;
+    }
+  }
+
+  private final long ttl;
+  private final int maxRecords;
+  private final LinkedHashMap<String, Prefix> prefixes = new LinkedHashMap<>(16, 0.75f, true);
+  private int records;
+
+  PageCache(long ttl, int maxRecords) {
+    this.ttl = ttl;
+    this.maxRecords = maxRecords;
+  }
+
+  /**
+   * Returns the page cache of a Vert.x instance.
+   */
+  public static PageCache get(Vertx vertx) {
+    return SharedObjects.get(vertx, CACHE_KEY, () -> new PageCache(TTL, MAX_RECORDS));
+  }
+
+  public boolean isEnabled() {
+    return ttl > 0 && maxRecords > 0;
+  }
+
+  /**
+   * Returns the key of the result of a module for a query.
+   */
+  public static String key(Map<String, String> headers, CodexInterfaces codexInterface, String module, String query) {
+    return SearchScope.of(headers) + '|' + codexInterface.getValue() + '|' + module + '|' + query;
+  }
+
+  /**
+   * Returns the cached records of the window from offset with up to limit records, or null if
+   * the prefix does not reach offset.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <T> Window<T> lookup(String key, int offset, int limit) {
+    if (!isEnabled()) {
+      return null;
+    }
+    Prefix prefix = prefixes.get(key);
+    if (prefix == null) {
+      return null;
+    }
+    if (System.currentTimeMillis() - prefix.created >= ttl) {
+      remove(key);
+      return null;
+    }
+    if (offset > prefix.items.size() || (offset == prefix.items.size() && !prefix.exhausted)) {
+      return null;
+    }
+    final int end = (int) Math.min(prefix.items.size(), (long) offset + limit);
+    final List<T> items = new ArrayList<>((List<T>) prefix.items.subList(offset, end));
+    final boolean complete = items.size() >= limit || prefix.exhausted;
+    return new Window<>(items, prefix.resultInfo, complete);
+  }
+
+  /**
+   * Stores a window that a module returned.
+   * @param key key of the module and query
+   * @param offset offset of the window
+   * @param items records of the window
+   * @param resultInfo result info that came with the window
+   * @param exhausted whether the module has no records after the window
+   */
+  public synchronized <T> void store(String key, int offset, List<T> items, ResultInfo resultInfo, boolean exhausted) {
+    if (!isEnabled() || items == null) {
+      return;
+    }
+    Prefix prefix = prefixes.get(key);
+    if (prefix == null || System.currentTimeMillis() - prefix.created >= ttl) {
+      if (offset != 0) {
+        return;
+      }
+      remove(key);
+      prefix = new Prefix(System.currentTimeMillis());
+      prefixes.put(key, prefix);
+    }
+    final int size = prefix.items.size();
+    if (offset > size || prefix.exhausted) {
+      return;
+    }
+    final int from = size - offset;
+    if (from > items.size()) {
+      return;
+    }
+    prefix.items.addAll(items.subList(from, items.size()));
+    records += items.size() - from;
+    prefix.resultInfo = resultInfo;
+    prefix.exhausted = exhausted;
+    evict();
+  }
+
+  /**
+   * Drops all cached windows of a tenant.
+   */
+  public synchronized void invalidate(String tenant) {
+    Iterator<Map.Entry<String, Prefix>> it = prefixes.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Prefix> entry = it.next();
+      if (tenant.equals(entry.getKey().split("\\|", 3)[1])) {
+        records -= entry.getValue().items.size();
+        it.remove();
+      }
+    }
+  }
+
+  private void evict() {
+    Iterator<Prefix> it = prefixes.values().iterator();
+    while (records > maxRecords && it.hasNext()) {
+      records -= it.next().items.size();
+      it.remove();
+    }
+  }
+
+  private void remove(String key) {
+    Prefix prefix = prefixes.remove(key);
+    if (prefix != null) {
+      records -= prefix.items.size();
+    }
+  }
+}
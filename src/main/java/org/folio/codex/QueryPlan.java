@@ -0,0 +1,130 @@
+package org.folio.codex;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.z3950.zing.cql.CQLNode;
+import org.z3950.zing.cql.CQLParseException;
+import org.z3950.zing.cql.CQLParser;
+import org.z3950.zing.cql.CQLSortNode;
+
+import org.folio.codex.exception.QueryValidationException;
+
+/**
+ * Everything the multiplexer derives from a query string: the parse tree, the sort node, the
+ * canonical form, the comparators and the query for each module. Plans are shared by all requests
+ * with the same query, so nothing in a plan may be changed after it is derived; in particular the
+ * parse tree is only read, and module queries are reduced into new nodes (see
+ * {@link Multiplexer#filterSource}). The plans only depend on the query string, not on the tenant or
+ * the Vert.x instance, so they are kept in one process-wide LRU cache of at most
+ * {@code codex.mux.query.cache.maxSize} queries. Each plan remembers the queries of at most
+ * {@code codex.mux.query.cache.maxModuleQueries} modules; further modules are reduced per request.
+ */
+public class QueryPlan {
+
+  static final int MAX_SIZE = Integer.getInteger("codex.mux.query.cache.maxSize", 1000);
+  static final int MAX_MODULE_QUERIES = Integer.getInteger("codex.mux.query.cache.maxModuleQueries", 64);
+
+  private static final Map<String, QueryPlan> plans = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, QueryPlan> eldest) {
+      return size() > MAX_SIZE;
+    }
+  };
+
+  private final CQLNode cqlNode;
+  private final CQLSortNode sortNode;
+  private final String canonicalQuery;
+  private final Map<Class<?>, Optional<?>> comparators = new ConcurrentHashMap<>();
+  private final Map<String, Optional<String>> moduleQueries = new ConcurrentHashMap<>();
+
+  private QueryPlan(CQLNode cqlNode) {
+    this.cqlNode = cqlNode;
+    this.sortNode = cqlNode == null ? null : CQLInspect.getSort(cqlNode);
+    this.canonicalQuery = CQLNormalizer.normalize(cqlNode);
+  }
+
+  /**
+   * Returns the plan of a query, parsing the query if it is not cached.
+   * @param query CQL query, or null for none
+   * @throws QueryValidationException if the query cannot be parsed
+   */
+  public static QueryPlan get(String query) {
+    if (query == null) {
+      return new QueryPlan(null);
+    }
+    if (MAX_SIZE > 0) {
+      synchronized (plans) {
+        QueryPlan plan = plans.get(query);
+        if (plan != null) {
+          return plan;
+        }
+      }
+    }
+    QueryPlan plan = new QueryPlan(parseQuery(query));
+    if (MAX_SIZE > 0) {
+      synchronized (plans) {
+        plans.put(query, plan);
+      }
+    }
+    return plan;
+  }
+
+  private static CQLNode parseQuery(String query) {
+    final CQLParser parser = new CQLParser(CQLParser.V1POINT2);
+    try {
+      return parser.parse(query);
+    } catch (CQLParseException | IOException e) {
+      throw new QueryValidationException("Unsupported Query Format : Search query is in an unsupported format.", e);
+    }
+  }
+
+  /**
+   * Returns the parse tree, or null without a query. The tree is shared and must not be modified.
+   */
+  public CQLNode getCqlNode() {
+    return cqlNode;
+  }
+
+  public CQLSortNode getSortNode() {
+    return sortNode;
+  }
+
+  public String getCanonicalQuery() {
+    return canonicalQuery;
+  }
+
+  /**
+   * Returns the comparator for records of type, creating it from the sort node with factory once.
+   * Exceptions of factory, e.g. for unsupported sort indexes, are not cached.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Comparator<T> getComparator(Class<T> type, Function<CQLSortNode, Comparator<T>> factory) {
+    return (Comparator<T>) comparators
+      .computeIfAbsent(type, t -> Optional.ofNullable(factory.apply(sortNode)))
+      .orElse(null);
+  }
+
+  /**
+   * Returns the query to send to module, computing it with reducer once; null if the module is
+   * filtered out. Without a query, the module query is null as well.
+   */
+  public String getModuleQuery(String module, Function<String, String> reducer) {
+    if (cqlNode == null) {
+      return null;
+    }
+    Optional<String> moduleQuery = moduleQueries.get(module);
+    if (moduleQuery == null) {
+      moduleQuery = Optional.ofNullable(reducer.apply(module));
+      if (moduleQueries.size() < MAX_MODULE_QUERIES) {
+        moduleQueries.put(module, moduleQuery);
+      }
+    }
+    return moduleQuery.orElse(null);
+  }
+}
@@ -0,0 +1,151 @@
+package org.folio.codex;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.json.JsonObject;
+
+import org.folio.codex.breaker.CircuitBreakers;
+import org.folio.rest.jaxrs.model.Diagnostic;
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+/**
+ * Timing of one search, collected when the caller asks for it with the X-Okapi-Codex-Mux-Timing
+ * header; RMB only hands X-Okapi headers to the resources, hence the prefix.
+ *
+ * <p>The Diagnostic schema has no room for timing, so it is reported as JSON in the message of
+ * the diagnostic of each module, with the error message of the module in its error field, and in
+ * an extra diagnostic with source mod-codex-mux for the search as a whole. Searches with timing
+ * bypass the search result cache and the {@link SearchCoalescer}, so that the timing is that of
+ * a real search.
+ */
+public class RequestTiming {
+
+  public static final String TIMING_HEADER = "x-okapi-codex-mux-timing";
+  public static final String SOURCE = "mod-codex-mux";
+
+  private static class ModuleTiming {
+    private int requests;
+    private long latencyNanos;
+    private long bytes;
+    private long parseNanos;
+    private int fetched;
+    private int merged;
+    private String pageCache;
+  }
+
+  private final long start = System.nanoTime();
+  private final Map<String, ModuleTiming> modules = new LinkedHashMap<>();
+  private long moduleListNanos = -1;
+  private long mergeNanos;
+
+  /**
+   * Returns a timing for a request whose headers ask for it, null otherwise. The header name is
+   * matched ignoring case, whatever map the headers come in.
+   */
+  public static RequestTiming of(Map<String, String> headers) {
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      if (TIMING_HEADER.equalsIgnoreCase(header.getKey())) {
+        return "true".equalsIgnoreCase(header.getValue()) ? new RequestTiming() : null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Records that the list of modules is known.
+   */
+  public void recordModuleList() {
+    moduleListNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Records a request to a module.
+   * @param bytes size of the response body
+   */
+  public synchronized void recordRequest(String module, long latencyNanos, long bytes) {
+    ModuleTiming timing = module(module);
+    timing.requests++;
+    timing.latencyNanos += latencyNanos;
+    timing.bytes += bytes;
+  }
+
+  /**
+   * Records the records of a module response and the time it took to parse them.
+   */
+  public synchronized void recordParse(String module, int records, long parseNanos) {
+    ModuleTiming timing = module(module);
+    timing.fetched += records;
+    timing.parseNanos += parseNanos;
+  }
+
+  /**
+   * Records whether a window of a module came from the page cache: hit, partial or miss.
+   */
+  public synchronized void recordPageCache(String module, String status) {
+    ModuleTiming timing = module(module);
+    if (timing.pageCache == null || "hit".equals(timing.pageCache)) {
+      timing.pageCache = status;
+    }
+  }
+
+  /**
+   * Records the merge: the records of each module that ended up in the page and the time spent merging.
+   */
+  public synchronized void recordMerge(List<String> mergedModules, int[] merged, long nanos) {
+    for (int i = 0; i < mergedModules.size(); i++) {
+      module(mergedModules.get(i)).merged = merged[i];
+    }
+    mergeNanos = nanos;
+  }
+
+  /**
+   * Adds the timing to the diagnostics of resultInfo, which {@link ResultInformation#analyzeResult}
+   * has set up with one diagnostic per module.
+   */
+  public synchronized <T> void addDiagnostics(Map<String, Multiplexer.MuxCollection<T>> cols, ResultInfo resultInfo,
+                                              CircuitBreakers breakers) {
+    for (Diagnostic diagnostic : resultInfo.getDiagnostics()) {
+      final String module = diagnostic.getSource();
+      final Multiplexer.MuxCollection<T> muxCollection = cols.get(module);
+      if (muxCollection == null) {
+        continue;
+      }
+      final ModuleTiming timing = module(module);
+      JsonObject json = new JsonObject()
+        .put("latencyMs", millis(timing.latencyNanos))
+        .put("requests", timing.requests)
+        .put("bytes", timing.bytes)
+        .put("parseMs", millis(timing.parseNanos))
+        .put("fetched", timing.fetched)
+        .put("merged", timing.merged)
+        .put("pageCache", timing.pageCache != null ? timing.pageCache : "disabled")
+        .put("circuit", breakers.isEnabled() ? breakers.forModule(module).getState().name() : "disabled");
+      if (diagnostic.getMessage() != null) {
+        json.put("error", diagnostic.getMessage());
+      }
+      diagnostic.setMessage(json.encode());
+    }
+    Diagnostic summary = new Diagnostic();
+    summary.setSource(SOURCE);
+    summary.setCode("200");
+    summary.setRecordCount(resultInfo.getTotalRecords());
+    summary.setMessage(new JsonObject()
+      .put("totalMs", millis(System.nanoTime() - start))
+      .put("moduleListMs", moduleListNanos >= 0 ? millis(moduleListNanos) : null)
+      .put("mergeMs", millis(mergeNanos))
+      .put("modules", cols.size())
+      .put("resultCache", "bypassed")
+      .encode());
+    resultInfo.getDiagnostics().add(summary);
+  }
+
+  private ModuleTiming module(String module) {
+    return modules.computeIfAbsent(module, m -> new ModuleTiming());
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+}
@@ -32,6 +32,18 @@ public class ResultInformation {
     return resultInfo;
   }
 
+  /**
+   * Returns true if all modules answered the search successfully.
+   */
+  public static <T> boolean isComplete(Map<String, Multiplexer.MuxCollection<T>> cols) {
+    for (Multiplexer.MuxCollection<T> muxCollection : cols.values()) {
+      if (muxCollection.statusCode != 200 || muxCollection.failure != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public static <T> void analyzeResult(Map<String, Multiplexer.MuxCollection<T>> cols, Multiplexer.CollectionExtension<T> result) {
 
     List<Diagnostic> diagnosticList = new LinkedList<>();
@@ -46,8 +58,11 @@ public class ResultInformation {
       diagnostic.setQuery(muxCollection.query);
       if (muxCollection.statusCode != 200) {
         diagnostic.setMessage(muxCollection.message.toString());
-        logger.warn("Module {} returned status {}", ent.getKey(), muxCollection.statusCode);
-        logger.warn(muxCollection.message.toString());
+        final String module = ent.getKey();
+        MuxLog.warnLimited(logger, module, () -> MuxLog.event("module failed")
+          .with("module", module)
+          .with("status", Integer.toString(muxCollection.statusCode))
+          .with("message", MuxLog.truncate(muxCollection.message)));
       }
       diagnosticList.add(diagnostic);
     }
@@ -0,0 +1,69 @@
+package org.folio.codex;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+/**
+ * Lets identical searches that run at the same time share one execution: the first search with a
+ * key runs, and searches with the same key that arrive before it completes get its result.
+ * Results are shared, so callers must not change them.
+ */
+public class SearchCoalescer {
+
+  static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("codex.mux.coalesce.enabled", "true"));
+
+  private static final String COALESCER_KEY = "searchCoalescer";
+
+  private final boolean enabled;
+  private final Map<String, Future<?>> inFlight = new HashMap<>();
+
+  SearchCoalescer(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the search coalescer of a Vert.x instance.
+   */
+  public static SearchCoalescer get(Vertx vertx) {
+    return SharedObjects.get(vertx, COALESCER_KEY, () -> new SearchCoalescer(ENABLED));
+  }
+
+  /**
+   * Returns the in-flight search with key, or starts it with search if there is none.
+   * @param key identifies the search, e.g. {@link SearchResultCache#key}
+   * @param search runs the search
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Future<T> coalesce(String key, Supplier<Future<T>> search) {
+    if (!enabled) {
+      return search.get();
+    }
+    synchronized (this) {
+      Future<T> future = (Future<T>) inFlight.get(key);
+      if (future != null) {
+        return future;
+      }
+    }
+    Future<T> future = search.get();
+    synchronized (this) {
+      if (future.isComplete()) {
+        return future;
+      }
+      inFlight.put(key, future);
+    }
+    future.onComplete(res -> {
+      synchronized (this) {
+        inFlight.remove(key, future);
+      }
+    });
+    return future;
+  }
+
+  synchronized int size() {
+    return inFlight.size();
+  }
+}
@@ -0,0 +1,154 @@
+package org.folio.codex;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Cache of merged search results, keyed by {@link SearchScope}, interface, modules, query and page.
+ *
+ * <p>Results are kept as the encoded collection, so their size in bytes is known and a hit can be
+ * sent as it is. The cache is bounded by maxBytes in total and by maxTenantBytes per tenant, so
+ * one tenant cannot push the results of the others out; the least recently used results are
+ * evicted first. Entries expire after ttl milliseconds.
+ */
+public class SearchResultCache {
+
+  static final long TTL = Long.getLong("codex.mux.results.cache.ttl", 30000L);
+  static final long MAX_BYTES = Long.getLong("codex.mux.results.cache.maxBytes", 64L * 1024 * 1024);
+  static final long MAX_TENANT_BYTES = Long.getLong("codex.mux.results.cache.maxTenantBytes", 16L * 1024 * 1024);
+
+  private static final String CACHE_KEY = "searchResultCache";
+
+  private static class Entry {
+    private final String tenant;
+    private final Buffer result;
+    private final long created;
+
+    Entry(String tenant, Buffer result, long created) {
+      this.tenant = tenant;
+      this.result = result;
+      this.created = created;
+    }
+  }
+
+  private final long ttl;
+  private final long maxBytes;
+  private final long maxTenantBytes;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Long> tenantBytes = new HashMap<>();
+  private long bytes;
+
+  SearchResultCache(long ttl, long maxBytes, long maxTenantBytes) {
+    this.ttl = ttl;
+    this.maxBytes = maxBytes;
+    this.maxTenantBytes = maxTenantBytes;
+  }
+
+  /**
+   * Returns the search result cache of a Vert.x instance.
+   */
+  public static SearchResultCache get(Vertx vertx) {
+    return SharedObjects.get(vertx, CACHE_KEY, () -> new SearchResultCache(TTL, MAX_BYTES, MAX_TENANT_BYTES));
+  }
+
+  public boolean isEnabled() {
+    return ttl > 0 && maxBytes > 0;
+  }
+
+  /**
+   * Returns the key of a search result.
+   * @param headers Okapi headers of the request
+   * @param codexInterface interface that is searched
+   * @param modules modules that are searched
+   * @param query canonical form of the query
+   * @param offset offset of the page
+   * @param limit limit of the page
+   */
+  @SuppressWarnings({"squid:S00107"})
+  public static String key(Map<String, String> headers, CodexInterfaces codexInterface, List<String> modules,
+                           String query, int offset, int limit) {
+    return SearchScope.of(headers) + '|' + codexInterface.getValue() + '|' + String.join(",", modules) + '|' + offset + '|' + limit + '|' + query;
+  }
+
+  /**
+   * Returns the encoded cached result, or null if there is none. The buffer is shared and must
+   * not be changed.
+   */
+  public Buffer get(String key) {
+    if (!isEnabled()) {
+      return null;
+    }
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (System.currentTimeMillis() - entry.created >= ttl) {
+        remove(key);
+        return null;
+      }
+      return entry.result;
+    }
+  }
+
+  /**
+   * Caches the encoded result of a search of tenant.
+   */
+  public synchronized void put(String key, String tenant, Buffer result) {
+    if (!isEnabled() || result.length() > Math.min(maxBytes, maxTenantBytes)) {
+      return;
+    }
+    remove(key);
+    entries.put(key, new Entry(tenant, result, System.currentTimeMillis()));
+    bytes += result.length();
+    tenantBytes.merge(tenant, (long) result.length(), Long::sum);
+    evict(tenant);
+  }
+
+  /**
+   * Drops all cached results of a tenant.
+   */
+  public synchronized void invalidate(String tenant) {
+    entries.values().removeIf(entry -> {
+      if (entry.tenant.equals(tenant)) {
+        bytes -= entry.result.length();
+        return true;
+      }
+      return false;
+    });
+    tenantBytes.remove(tenant);
+  }
+
+  synchronized long getBytes() {
+    return bytes;
+  }
+
+  private void evict(String tenant) {
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (it.hasNext() && (bytes > maxBytes || tenantBytes.getOrDefault(tenant, 0L) > maxTenantBytes)) {
+      Entry entry = it.next().getValue();
+      if (bytes > maxBytes || entry.tenant.equals(tenant)) {
+        it.remove();
+        release(entry);
+      }
+    }
+  }
+
+  private void remove(String key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      release(entry);
+    }
+  }
+
+  private void release(Entry entry) {
+    bytes -= entry.result.length();
+    tenantBytes.computeIfPresent(entry.tenant, (t, b) -> b == entry.result.length() ? null : b - entry.result.length());
+  }
+}
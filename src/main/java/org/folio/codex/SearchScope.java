@@ -0,0 +1,27 @@
+package org.folio.codex;
+
+import java.util.Map;
+
+import org.folio.okapi.common.XOkapiHeaders;
+
+/**
+ * Scope of the state the multiplexer keeps about searches: the merge cursors, the search result
+ * cache and the page cache. The codex modules are called with the token of the user, so their
+ * results may depend on the user; all three are therefore kept per Okapi location, tenant and
+ * user, so that no user is served the results of another.
+ */
+public class SearchScope {
+
+  private SearchScope() {
+    throw new IllegalStateException("SearchScope");
+  }
+
+  /**
+   * Returns the scope of a request as the start of a key: Okapi location, tenant and user,
+   * separated by "|", with the tenant as the second field.
+   */
+  public static String of(Map<String, String> headers) {
+    return headers.get(XOkapiHeaders.URL) + '|' + headers.get(XOkapiHeaders.TENANT) + '|'
+      + headers.get(XOkapiHeaders.USER_ID);
+  }
+}
@@ -0,0 +1,46 @@
+package org.folio.codex;
+
+import java.util.function.Supplier;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+/**
+ * Long-lived objects (clients, caches) that the multiplexer keeps per Vert.x instance.
+ * They are stored in a Vert.x local map so that they are created once and go away
+ * together with the Vert.x instance that owns them.
+ */
+public class SharedObjects {
+
+  private static final String SHARED_MAP = "codex.mux";
+
+  private static final class Holder implements Shareable {
+    private final Object value;
+
+    private Holder(Object value) {
+      this.value = value;
+    }
+  }
+
+  private SharedObjects() {
+  }
+
+  /**
+   * Returns the object registered under key for this Vert.x instance, creating it with
+   * factory on first use.
+   * @param vertx Vert.x instance that owns the object
+   * @param key name of the object
+   * @param factory creates the object if it does not exist yet
+   */
+  @SuppressWarnings("unchecked")
+  public static synchronized <T> T get(Vertx vertx, String key, Supplier<T> factory) {
+    LocalMap<String, Holder> map = vertx.sharedData().getLocalMap(SHARED_MAP);
+    Holder holder = map.get(key);
+    if (holder == null) {
+      holder = new Holder(factory.get());
+      map.put(key, holder);
+    }
+    return (T) holder.value;
+  }
+}
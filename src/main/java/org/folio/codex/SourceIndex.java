@@ -0,0 +1,112 @@
+package org.folio.codex;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Remembers which module returned a record in a search, so that a later lookup of the
+ * record by id can go to that module only instead of to all modules.
+ *
+ * <p>Entries are keyed by a 64-bit hash of tenant, interface and id and kept in LRU stripes
+ * of bounded size. A hash collision or a record that has moved only costs a wasted request:
+ * callers fall back to asking all modules when the routed module does not have the record.
+ */
+public class SourceIndex {
+
+  static final int MAX_SIZE = Integer.getInteger("codex.mux.routing.maxSize", 100000);
+  static final int STRIPES = 16;
+
+  private static final String INDEX_KEY = "sourceIndex";
+
+  private final Map<Long, String>[] stripes;
+  private final Map<String, String> moduleNames = new HashMap<>();
+
+  @SuppressWarnings("unchecked")
+  SourceIndex(int maxSize) {
+    final int stripeSize = Math.max(1, maxSize / STRIPES);
+    stripes = new Map[maxSize > 0 ? STRIPES : 0];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+          return size() > stripeSize;
+        }
+      };
+    }
+  }
+
+  /**
+   * Returns the source index of a Vert.x instance.
+   */
+  public static SourceIndex get(Vertx vertx) {
+    return SharedObjects.get(vertx, INDEX_KEY, () -> new SourceIndex(MAX_SIZE));
+  }
+
+  public boolean isEnabled() {
+    return stripes.length > 0;
+  }
+
+  /**
+   * Records that module returned the record with id.
+   */
+  public void put(String tenant, CodexInterfaces codexInterface, String id, String module) {
+    if (!isEnabled() || id == null) {
+      return;
+    }
+    final long key = hash(tenant, codexInterface, id);
+    final Map<Long, String> stripe = stripe(key);
+    synchronized (stripe) {
+      stripe.put(key, moduleName(module));
+    }
+  }
+
+  /**
+   * Returns the module that last returned the record with id, or null if unknown.
+   */
+  public String lookup(String tenant, CodexInterfaces codexInterface, String id) {
+    if (!isEnabled() || id == null) {
+      return null;
+    }
+    final long key = hash(tenant, codexInterface, id);
+    final Map<Long, String> stripe = stripe(key);
+    synchronized (stripe) {
+      return stripe.get(key);
+    }
+  }
+
+  /**
+   * Forgets the module of the record with id.
+   */
+  public void remove(String tenant, CodexInterfaces codexInterface, String id) {
+    if (!isEnabled() || id == null) {
+      return;
+    }
+    final long key = hash(tenant, codexInterface, id);
+    final Map<Long, String> stripe = stripe(key);
+    synchronized (stripe) {
+      stripe.remove(key);
+    }
+  }
+
+  private Map<Long, String> stripe(long key) {
+    return stripes[(int) (key >>> 60) & (STRIPES - 1)];
+  }
+
+  // modules are few, so all entries share one string per module
+  private synchronized String moduleName(String module) {
+    return moduleNames.computeIfAbsent(module, m -> m);
+  }
+
+  /**
+   * 64-bit FNV-1a hash of tenant, interface and id.
+   */
+  static long hash(String tenant, CodexInterfaces codexInterface, String id) {
+    // separators, so that ("ab", "c") and ("a", "bc") differ
+    long h = Fnv1a.hash(Fnv1a.OFFSET_BASIS, String.valueOf(tenant) + '\0');
+    h = Fnv1a.hash(h, codexInterface.getValue() + '\0');
+    return Fnv1a.hash(h, id);
+  }
+}
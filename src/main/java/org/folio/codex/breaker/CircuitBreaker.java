@@ -0,0 +1,115 @@
+package org.folio.codex.breaker;
+
+/**
+ * Circuit breaker of one codex module.
+ *
+ * <p>The outcomes of the last windowSize calls are kept in a ring. Once at least minCalls
+ * calls are recorded and the share of failed or of slow calls reaches its threshold, the circuit
+ * opens and calls are rejected for openDuration milliseconds. After that the circuit is half
+ * open: up to halfOpenCalls probe calls are let through; if they all succeed the circuit closes,
+ * otherwise it opens again.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final String module;
+  private final CircuitBreakerConfig config;
+  private final boolean[] failures;
+  private final boolean[] slowCalls;
+  private int next;
+  private int calls;
+  private int failureCount;
+  private int slowCount;
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int probes;
+  private int probeSuccesses;
+
+  CircuitBreaker(String module, CircuitBreakerConfig config) {
+    this.module = module;
+    this.config = config;
+    this.failures = new boolean[config.getWindowSize()];
+    this.slowCalls = new boolean[config.getWindowSize()];
+  }
+
+  public String getModule() {
+    return module;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Returns true if a call may be made now; false if the circuit is open. Every permitted
+   * call must be followed by {@link #record}.
+   */
+  public synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      if (System.currentTimeMillis() - openedAt < config.getOpenDuration()) {
+        return false;
+      }
+      state = State.HALF_OPEN;
+      probes = 0;
+      probeSuccesses = 0;
+    }
+    if (state == State.HALF_OPEN) {
+      if (probes >= config.getHalfOpenCalls()) {
+        return false;
+      }
+      probes++;
+    }
+    return true;
+  }
+
+  /**
+   * Records the outcome of a permitted call.
+   * @param failed whether the call failed
+   * @param duration duration of the call in milliseconds
+   */
+  public synchronized void record(boolean failed, long duration) {
+    final boolean slow = duration >= config.getSlowCallDuration();
+    if (state == State.HALF_OPEN) {
+      if (failed || slow) {
+        open();
+      } else if (++probeSuccesses >= config.getHalfOpenCalls()) {
+        close();
+      }
+      return;
+    }
+    if (state == State.OPEN) {
+      return;
+    }
+    if (calls == failures.length) {
+      failureCount -= failures[next] ? 1 : 0;
+      slowCount -= slowCalls[next] ? 1 : 0;
+    } else {
+      calls++;
+    }
+    failures[next] = failed;
+    slowCalls[next] = slow;
+    failureCount += failed ? 1 : 0;
+    slowCount += slow ? 1 : 0;
+    next = (next + 1) % failures.length;
+    if (calls >= config.getMinCalls()
+      && (failureCount * 100 >= config.getFailureRate() * calls || slowCount * 100 >= config.getSlowCallRate() * calls)) {
+      open();
+    }
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = System.currentTimeMillis();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    calls = 0;
+    next = 0;
+    failureCount = 0;
+    slowCount = 0;
+  }
+}
@@ -0,0 +1,100 @@
+package org.folio.codex.breaker;
+
+/**
+ * Settings of the module circuit breakers, read from the codex.mux.breaker.* system properties.
+ */
+public class CircuitBreakerConfig {
+
+  private boolean enabled = Boolean.parseBoolean(System.getProperty("codex.mux.breaker.enabled", "true"));
+  private int windowSize = Math.max(1, Integer.getInteger("codex.mux.breaker.windowSize", 20));
+  private int minCalls = Math.max(1, Integer.getInteger("codex.mux.breaker.minCalls", 10));
+  private int failureRate = Integer.getInteger("codex.mux.breaker.failureRate", 50);
+  private int slowCallRate = Integer.getInteger("codex.mux.breaker.slowCallRate", 80);
+  private long slowCallDuration = Long.getLong("codex.mux.breaker.slowCallDuration", 10000L);
+  private long openDuration = Long.getLong("codex.mux.breaker.openDuration", 30000L);
+  private int halfOpenCalls = Integer.getInteger("codex.mux.breaker.halfOpenCalls", 3);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public CircuitBreakerConfig setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  public CircuitBreakerConfig setWindowSize(int windowSize) {
+    this.windowSize = Math.max(1, windowSize);
+    return this;
+  }
+
+  public int getMinCalls() {
+    return minCalls;
+  }
+
+  public CircuitBreakerConfig setMinCalls(int minCalls) {
+    this.minCalls = Math.max(1, minCalls);
+    return this;
+  }
+
+  /**
+   * Percentage of failed calls in the window at which the circuit opens.
+   */
+  public int getFailureRate() {
+    return failureRate;
+  }
+
+  public CircuitBreakerConfig setFailureRate(int failureRate) {
+    this.failureRate = failureRate;
+    return this;
+  }
+
+  /**
+   * Percentage of slow calls in the window at which the circuit opens.
+   */
+  public int getSlowCallRate() {
+    return slowCallRate;
+  }
+
+  public CircuitBreakerConfig setSlowCallRate(int slowCallRate) {
+    this.slowCallRate = slowCallRate;
+    return this;
+  }
+
+  /**
+   * Duration in milliseconds from which a call counts as slow.
+   */
+  public long getSlowCallDuration() {
+    return slowCallDuration;
+  }
+
+  public CircuitBreakerConfig setSlowCallDuration(long slowCallDuration) {
+    this.slowCallDuration = slowCallDuration;
+    return this;
+  }
+
+  /**
+   * Milliseconds that an open circuit rejects calls before it lets probe calls through.
+   */
+  public long getOpenDuration() {
+    return openDuration;
+  }
+
+  public CircuitBreakerConfig setOpenDuration(long openDuration) {
+    this.openDuration = openDuration;
+    return this;
+  }
+
+  public int getHalfOpenCalls() {
+    return halfOpenCalls;
+  }
+
+  public CircuitBreakerConfig setHalfOpenCalls(int halfOpenCalls) {
+    this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    return this;
+  }
+}
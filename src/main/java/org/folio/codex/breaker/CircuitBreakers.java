@@ -0,0 +1,50 @@
+package org.folio.codex.breaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vertx.core.Vertx;
+
+import org.folio.codex.SharedObjects;
+
+/**
+ * The circuit breakers of the codex modules of a Vert.x instance, one per module id.
+ */
+public class CircuitBreakers {
+
+  private static final String BREAKERS_KEY = "circuitBreakers";
+
+  private final CircuitBreakerConfig config;
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+  public CircuitBreakers(CircuitBreakerConfig config) {
+    this.config = config;
+  }
+
+  /**
+   * Returns the circuit breakers of a Vert.x instance.
+   */
+  public static CircuitBreakers get(Vertx vertx) {
+    return SharedObjects.get(vertx, BREAKERS_KEY, () -> new CircuitBreakers(new CircuitBreakerConfig()));
+  }
+
+  public boolean isEnabled() {
+    return config.isEnabled();
+  }
+
+  /**
+   * Returns the circuit breaker of a module, creating a closed one on first use.
+   */
+  public CircuitBreaker forModule(String module) {
+    return breakers.computeIfAbsent(module, m -> new CircuitBreaker(m, config));
+  }
+
+  /**
+   * Returns the circuit breakers created so far.
+   */
+  public List<CircuitBreaker> getAll() {
+    return new ArrayList<>(breakers.values());
+  }
+}
@@ -0,0 +1,130 @@
+package org.folio.codex.comparator;
+
+import java.util.function.Function;
+
+/**
+ * Sort value of a bibliographic date such as "1991", "c1991", "[2001?]", "199-", "19uu" or
+ * "2018-08-13", so that dates sort by time rather than as text.
+ *
+ * <p>The value is taken from the first number of three or four digits in the date; digits at the
+ * end of the number that are marked unknown with "-", "u", "x" or "?" count as 0, one mark per
+ * digit, so "199-" sorts as 1990 and "1?" is too short for a year, while the "-" of a range such
+ * as "999-1000" ends the number. A month and a
+ * day that follow a four digit year as "-MM" or "-MM-DD" order dates within the year, after the
+ * dates with the year only. A date without such a number is missing.
+ */
+public class DateSortKey {
+
+  /**
+   * Encodes a date by its sort value.
+   */
+  public static final Function<String, byte[]> ENCODING = DateSortKey::encode;
+
+  /**
+   * Sort value of a date without a year.
+   */
+  public static final long MISSING = -1L;
+
+  private static final int YEAR_DIGITS = 4;
+  private static final int MIN_YEAR_DIGITS = 3;
+
+  private DateSortKey() {
+    throw new IllegalStateException("DateSortKey");
+  }
+
+  /**
+   * Returns the sort value of a date, yyyymmdd with 0 for an unknown month or day, or
+   * {@link #MISSING} if the date has no year.
+   */
+  public static long parse(String date) {
+    final int length = date.length();
+    int i = 0;
+    while (i < length) {
+      if (!isDigit(date.charAt(i))) {
+        i++;
+        continue;
+      }
+      int year = 0;
+      int digits = 0;
+      int start = i;
+      while (i < length && digits < YEAR_DIGITS && isDigit(date.charAt(i))) {
+        year = year * 10 + date.charAt(i++) - '0';
+        digits++;
+      }
+      boolean unknown = false;
+      while (i < length && digits < YEAR_DIGITS && isUnknown(date, i)) {
+        year = year * 10;
+        digits++;
+        i++;
+        unknown = true;
+      }
+      if (digits < MIN_YEAR_DIGITS || (i < length && isDigit(date.charAt(i)))) {
+        // too short for a year, or a longer number; skip the whole number
+        i = skipNumber(date, start);
+        continue;
+      }
+      long value = year * 10000L;
+      if (!unknown && digits == YEAR_DIGITS) {
+        int month = twoDigits(date, i);
+        if (month >= 1 && month <= 12) {
+          value += month * 100L;
+          int day = twoDigits(date, i + 3);
+          if (day >= 1 && day <= 31) {
+            value += day;
+          }
+        }
+      }
+      return value;
+    }
+    return MISSING;
+  }
+
+  /**
+   * Returns the two digit number after a "-" at index i, or -1 if there is none.
+   */
+  private static int twoDigits(String date, int i) {
+    if (i + 3 > date.length() || date.charAt(i) != '-'
+      || !isDigit(date.charAt(i + 1)) || !isDigit(date.charAt(i + 2))
+      || (i + 3 < date.length() && isDigit(date.charAt(i + 3)))) {
+      return -1;
+    }
+    return (date.charAt(i + 1) - '0') * 10 + date.charAt(i + 2) - '0';
+  }
+
+  private static int skipNumber(String date, int i) {
+    while (i < date.length() && (isDigit(date.charAt(i)) || isUnknownMark(date.charAt(i)))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Returns true if the character at index i marks an unknown digit: an unknown mark that no
+   * digit follows, so that a "-" between two numbers is not taken for one.
+   */
+  private static boolean isUnknown(String date, int i) {
+    final char c = date.charAt(i);
+    return (c == '-' || isUnknownMark(c)) && (i + 1 >= date.length() || !isDigit(date.charAt(i + 1)));
+  }
+
+  private static boolean isUnknownMark(char c) {
+    return c == 'u' || c == 'x' || c == '?';
+  }
+
+  private static byte[] encode(String date) {
+    final long value = parse(date);
+    if (value == MISSING) {
+      return null;
+    }
+    // big endian, so that the bytes compare like the values
+    byte[] key = new byte[Long.BYTES];
+    for (int i = Long.BYTES - 1; i >= 0; i--) {
+      key[i] = (byte) (value >>> (8 * (Long.BYTES - 1 - i)));
+    }
+    return key;
+  }
+}
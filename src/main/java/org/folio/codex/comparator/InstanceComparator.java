@@ -1,58 +1,46 @@
 package org.folio.codex.comparator;
 
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.z3950.zing.cql.CQLSortNode;
-import org.z3950.zing.cql.Modifier;
-import org.z3950.zing.cql.ModifierSet;
 
+import org.folio.rest.jaxrs.model.Contributor;
 import org.folio.rest.jaxrs.model.Instance;
 
 public class InstanceComparator {
 
-  private InstanceComparator() {
-    throw new IllegalStateException("InstanceComparator");
+  private static final Map<String, SortKeys.Field<Instance>> FIELDS = new HashMap<>();
+
+  static {
+    FIELDS.put("title", new SortKeys.Field<>(Instance::getTitle, SortKey.COLLATED));
+    FIELDS.put("date", new SortKeys.Field<>(Instance::getDate, DateSortKey.ENCODING));
+    FIELDS.put("id", new SortKeys.Field<>(Instance::getId, SortKey.ORDINAL));
+    FIELDS.put("contributor", new SortKeys.Field<>(InstanceComparator::getContributor, SortKey.COLLATED));
+    FIELDS.put("publisher", new SortKeys.Field<>(Instance::getPublisher, SortKey.COLLATED));
+    FIELDS.put("type", new SortKeys.Field<>(instance -> Objects.toString(instance.getType(), null),
+      SortKey.COLLATED));
+    FIELDS.put("source", new SortKeys.Field<>(instance -> Objects.toString(instance.getSource(), null),
+      SortKey.ORDINAL));
   }
 
-  private static int compare(String comparisonString1, String comparisonString2) {
-    final String s1 = comparisonString1 != null ? comparisonString1 : "";
-    final String s2 = comparisonString2 != null ? comparisonString2 : "";
-    return s1.compareToIgnoreCase(s2);
+  private InstanceComparator() {
+    throw new IllegalStateException("InstanceComparator");
   }
 
   public static Comparator<Instance> get(CQLSortNode sortNode) {
+    return SortKeys.compile(sortNode, FIELDS);
+  }
 
-    if (sortNode == null) {
+  // instances sort by their first contributor
+  private static String getContributor(Instance instance) {
+    Set<Contributor> contributors = instance.getContributor();
+    if (contributors == null || contributors.isEmpty()) {
       return null;
     }
-
-    Comparator<Instance> instanceComparator = null;
-    Iterator<ModifierSet> iterator = sortNode.getSortIndexes().iterator();
-
-    if (iterator.hasNext()) {
-      ModifierSet modifierSet = iterator.next();
-
-      final String index = modifierSet.getBase();
-
-      if ("title".equals(index)) {
-        instanceComparator = (Instance i1, Instance i2) -> compare(i1.getTitle(), i2.getTitle());
-      } else if ("date".equals(index)) {
-        instanceComparator = (Instance i1, Instance i2) -> compare(i1.getDate(), i2.getDate());
-      } else if ("id".equals(index)) {
-        instanceComparator = (Instance i1, Instance i2) -> compare(i1.getId(), i2.getId());
-      } else {
-        throw (new IllegalArgumentException("unsupported sort index " + index));
-      }
-      if(isReverse(modifierSet.getModifiers())){
-        instanceComparator = instanceComparator.reversed();
-      }
-    }
-    return instanceComparator;
-  }
-
-  private static boolean isReverse(List<Modifier> mods) {
-    return mods.stream().anyMatch(modifier -> modifier.getType().startsWith("desc"));
+    return contributors.iterator().next().getName();
   }
 }
@@ -0,0 +1,107 @@
+package org.folio.codex.comparator;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Sort key of a field of a record, as bytes that compare in the order of the field.
+ *
+ * <p>Collated keys follow the rules of the sort locale (codex.mux.sort.locale, default en): case
+ * is ignored, and so are diacritics if codex.mux.sort.ignoreDiacritics is true. Ordinal keys
+ * compare the lower case code points, e.g. for identifiers. A missing or empty value sorts lower
+ * than all values unless missingHigh is set; the direction applies to missing values as well.
+ */
+public class SortKey<T> implements SortKeyComparator<T, byte[]> {
+
+  static final Locale LOCALE = Locale.forLanguageTag(System.getProperty("codex.mux.sort.locale", "en"));
+  static final boolean IGNORE_DIACRITICS = Boolean.getBoolean("codex.mux.sort.ignoreDiacritics");
+
+  /**
+   * Encodes text by the collation rules of the sort locale.
+   */
+  public static final Function<String, byte[]> COLLATED = SortKey::collationKey;
+
+  /**
+   * Encodes text by its lower case code points.
+   */
+  public static final Function<String, byte[]> ORDINAL = SortKey::ordinalKey;
+
+  // collators are not thread safe; each thread gets its own
+  private static final ThreadLocal<Collator> collator = ThreadLocal.withInitial(() -> {
+    Collator c = Collator.getInstance(LOCALE);
+    c.setStrength(IGNORE_DIACRITICS ? Collator.PRIMARY : Collator.SECONDARY);
+    c.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+    return c;
+  });
+
+  private final Function<T, String> field;
+  private final Function<String, byte[]> encoding;
+  private final boolean descending;
+  private final boolean missingHigh;
+
+  /**
+   * @param field value of the field of a record, or null if it is missing
+   * @param encoding turns a non-empty value into its key
+   * @param descending whether the key sorts in descending order
+   * @param missingHigh whether missing values sort higher rather than lower than all values
+   */
+  public SortKey(Function<T, String> field, Function<String, byte[]> encoding, boolean descending,
+                 boolean missingHigh) {
+    this.field = field;
+    this.encoding = encoding;
+    this.descending = descending;
+    this.missingHigh = missingHigh;
+  }
+
+  /**
+   * Returns the sort key of a text field that is ordered by the sort locale.
+   */
+  public static <T> SortKey<T> collated(Function<T, String> field, boolean descending) {
+    return new SortKey<>(field, COLLATED, descending, false);
+  }
+
+  /**
+   * Returns the sort key of a field that is ordered by its lower case code points.
+   */
+  public static <T> SortKey<T> ordinal(Function<T, String> field, boolean descending) {
+    return new SortKey<>(field, ORDINAL, descending, false);
+  }
+
+  /**
+   * Returns the key of a record, or null if its value is missing.
+   */
+  @Override
+  public byte[] sortKey(T value) {
+    final String s = field.apply(value);
+    if (s == null || s.isEmpty()) {
+      return null;
+    }
+    return encoding.apply(s);
+  }
+
+  @Override
+  public int compareKeys(byte[] key1, byte[] key2) {
+    int result;
+    if (key1 == null || key2 == null) {
+      if (key1 == key2) {
+        return 0;
+      }
+      result = (key1 == null) != missingHigh ? -1 : 1;
+    } else {
+      result = Arrays.compareUnsigned(key1, key2);
+    }
+    return descending ? -result : result;
+  }
+
+  private static byte[] collationKey(String s) {
+    return collator.get().getCollationKey(s).toByteArray();
+  }
+
+  private static byte[] ordinalKey(String s) {
+    // UTF-8 keeps the order of the code points
+    return s.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+  }
+}
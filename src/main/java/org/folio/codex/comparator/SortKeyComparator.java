@@ -0,0 +1,27 @@
+package org.folio.codex.comparator;
+
+import java.util.Comparator;
+
+/**
+ * A comparator that compares records by a sort key, so that callers which compare the same record
+ * many times, like a merge, can extract its key once and then compare only the keys.
+ * @param <T> type of the records
+ * @param <K> type of the sort keys
+ */
+public interface SortKeyComparator<T, K> extends Comparator<T> {
+
+  /**
+   * Returns the sort key of a record.
+   */
+  K sortKey(T value);
+
+  /**
+   * Compares two sort keys in the order of the records they were extracted from.
+   */
+  int compareKeys(K key1, K key2);
+
+  @Override
+  default int compare(T value1, T value2) {
+    return compareKeys(sortKey(value1), sortKey(value2));
+  }
+}
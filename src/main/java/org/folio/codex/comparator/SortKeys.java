@@ -0,0 +1,120 @@
+package org.folio.codex.comparator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.z3950.zing.cql.CQLSortNode;
+import org.z3950.zing.cql.Modifier;
+import org.z3950.zing.cql.ModifierSet;
+
+/**
+ * Sort keys of all indexes of a sortby clause, compared in order: a later index only decides
+ * between records that are equal by the earlier ones.
+ *
+ * <p>Each index takes the modifiers ascending/descending, missingLow/missingHigh, and
+ * missingValue=x, which sorts records without a value as if their value were x. Other modifiers
+ * are ignored.
+ */
+public class SortKeys<T> implements SortKeyComparator<T, byte[][]> {
+
+  /**
+   * A sortable field of a record.
+   */
+  public static class Field<T> {
+    private final Function<T, String> value;
+    private final Function<String, byte[]> encoding;
+
+    /**
+     * @param value value of the field of a record, or null if it is missing
+     * @param encoding turns a value into its key, e.g. {@link SortKey#COLLATED}
+     */
+    public Field(Function<T, String> value, Function<String, byte[]> encoding) {
+      this.value = value;
+      this.encoding = encoding;
+    }
+  }
+
+  private final List<SortKey<T>> keys;
+
+  private SortKeys(List<SortKey<T>> keys) {
+    this.keys = keys;
+  }
+
+  /**
+   * Returns the comparator of a sortby clause, or null if there is none.
+   * @param sortNode sortby clause of the query, or null
+   * @param fields sortable fields by index name
+   * @throws IllegalArgumentException if an index is not one of fields
+   */
+  public static <T> Comparator<T> compile(CQLSortNode sortNode, Map<String, Field<T>> fields) {
+    if (sortNode == null || sortNode.getSortIndexes().isEmpty()) {
+      return null;
+    }
+    List<SortKey<T>> keys = new ArrayList<>();
+    for (ModifierSet modifierSet : sortNode.getSortIndexes()) {
+      final String index = modifierSet.getBase();
+      final Field<T> field = fields.get(index);
+      if (field == null) {
+        throw (new IllegalArgumentException("unsupported sort index " + index));
+      }
+      keys.add(compile(field, modifierSet.getModifiers()));
+    }
+    return keys.size() == 1 ? keys.get(0) : new SortKeys<>(keys);
+  }
+
+  private static <T> SortKey<T> compile(Field<T> field, List<Modifier> modifiers) {
+    boolean descending = false;
+    boolean missingHigh = false;
+    String missingValue = null;
+    for (Modifier modifier : modifiers) {
+      String type = modifier.getType().toLowerCase(Locale.ROOT);
+      if (type.startsWith("sort.")) {
+        type = type.substring("sort.".length());
+      }
+      if (type.startsWith("desc")) {
+        descending = true;
+      } else if (type.startsWith("asc")) {
+        descending = false;
+      } else if ("missinghigh".equals(type)) {
+        missingHigh = true;
+      } else if ("missinglow".equals(type)) {
+        missingHigh = false;
+      } else if ("missingvalue".equals(type)) {
+        missingValue = modifier.getValue();
+      }
+    }
+    Function<T, String> value = field.value;
+    if (missingValue != null) {
+      final String substitute = missingValue;
+      value = record -> {
+        String s = field.value.apply(record);
+        return s == null || s.isEmpty() ? substitute : s;
+      };
+    }
+    return new SortKey<>(value, field.encoding, descending, missingHigh);
+  }
+
+  @Override
+  public byte[][] sortKey(T value) {
+    byte[][] key = new byte[keys.size()][];
+    for (int i = 0; i < key.length; i++) {
+      key[i] = keys.get(i).sortKey(value);
+    }
+    return key;
+  }
+
+  @Override
+  public int compareKeys(byte[][] key1, byte[][] key2) {
+    for (int i = 0; i < key1.length; i++) {
+      int result = keys.get(i).compareKeys(key1[i], key2[i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,7 @@
+package org.folio.codex.exception;
+
+public class CircuitOpenException extends RuntimeException {
+  public CircuitOpenException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,84 @@
+package org.folio.codex.hedge;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vertx.core.Vertx;
+
+import org.folio.codex.SharedObjects;
+
+/**
+ * Decides when a request to a codex module is hedged, i.e. sent a second time because the first
+ * one takes longer than usual.
+ *
+ * <p>The delay is the configured percentile of the module's recent latencies, but at least
+ * minDelay milliseconds; modules with fewer than minSamples recorded latencies are not hedged.
+ * Hedges are limited by a budget shared by all modules: every request adds budget/100 of a
+ * token, up to maxTokens, and every hedge takes a whole token, so at most budget percent of the
+ * requests are hedged in the long run.
+ */
+public class HedgePolicy {
+
+  static final boolean ENABLED = Boolean.getBoolean("codex.mux.hedge.enabled");
+  static final double PERCENTILE = Double.parseDouble(System.getProperty("codex.mux.hedge.percentile", "95"));
+  static final long MIN_DELAY = Long.getLong("codex.mux.hedge.minDelay", 50L);
+  static final int MIN_SAMPLES = Integer.getInteger("codex.mux.hedge.minSamples", 20);
+  static final int WINDOW = Integer.getInteger("codex.mux.hedge.window", 1000);
+  static final int BUDGET = Integer.getInteger("codex.mux.hedge.budget", 10);
+  static final int MAX_TOKENS = Integer.getInteger("codex.mux.hedge.maxTokens", 10);
+
+  private static final String POLICY_KEY = "hedgePolicy";
+
+  private final boolean enabled;
+  private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+  private double tokens;
+
+  HedgePolicy(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the hedge policy of a Vert.x instance.
+   */
+  public static HedgePolicy get(Vertx vertx) {
+    return SharedObjects.get(vertx, POLICY_KEY, () -> new HedgePolicy(ENABLED));
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the latency histogram of a module.
+   */
+  public LatencyHistogram getHistogram(String module) {
+    return histograms.computeIfAbsent(module, m -> new LatencyHistogram(WINDOW));
+  }
+
+  /**
+   * Returns the delay in milliseconds after which a request to module is hedged, or -1 if it
+   * should not be hedged. Adds to the hedge budget, since it is called once per request.
+   */
+  public long getDelay(String module) {
+    synchronized (this) {
+      tokens = Math.min(MAX_TOKENS, tokens + BUDGET / 100.0);
+    }
+    LatencyHistogram histogram = getHistogram(module);
+    if (!enabled || histogram.getCount() < MIN_SAMPLES) {
+      return -1;
+    }
+    final long percentile = histogram.getPercentile(PERCENTILE);
+    return percentile == Long.MAX_VALUE ? -1 : Math.max(MIN_DELAY, percentile);
+  }
+
+  /**
+   * Takes a token from the hedge budget; returns false if the budget is used up.
+   */
+  public synchronized boolean tryHedge() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+}
@@ -0,0 +1,86 @@
+package org.folio.codex.hedge;
+
+/**
+ * Histogram of the latencies of the last size requests to a module.
+ *
+ * <p>Latencies are counted in exponential buckets that grow by about 20% each, so a percentile
+ * is accurate to that factor; the bucket of each sample is kept in a ring so that the oldest
+ * sample leaves the histogram when a new one is recorded.
+ */
+public class LatencyHistogram {
+
+  static final int BUCKETS = 64;
+  private static final double GROWTH = 1.2;
+  private static final long[] UPPER_BOUNDS = new long[BUCKETS];
+
+  static {
+    double bound = 1;
+    for (int i = 0; i < BUCKETS - 1; i++) {
+      UPPER_BOUNDS[i] = (long) Math.ceil(bound);
+      bound *= GROWTH;
+    }
+    UPPER_BOUNDS[BUCKETS - 1] = Long.MAX_VALUE;
+  }
+
+  private final int[] counts = new int[BUCKETS];
+  private final byte[] samples;
+  private int next;
+  private int size;
+
+  public LatencyHistogram(int size) {
+    this.samples = new byte[Math.max(1, size)];
+  }
+
+  /**
+   * Records the latency of a request in milliseconds.
+   */
+  public synchronized void record(long latency) {
+    final int bucket = bucket(latency);
+    if (size == samples.length) {
+      counts[samples[next]]--;
+    } else {
+      size++;
+    }
+    samples[next] = (byte) bucket;
+    counts[bucket]++;
+    next = (next + 1) % samples.length;
+  }
+
+  public synchronized int getCount() {
+    return size;
+  }
+
+  /**
+   * Returns the upper bound in milliseconds of the bucket holding the given percentile
+   * of the recorded latencies, or -1 if nothing was recorded.
+   * @param percentile percentile between 0 and 100
+   */
+  public synchronized long getPercentile(double percentile) {
+    if (size == 0) {
+      return -1;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(size * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return UPPER_BOUNDS[i];
+      }
+    }
+    return UPPER_BOUNDS[BUCKETS - 1];
+  }
+
+  static int bucket(long latency) {
+    int low = 0;
+    int high = BUCKETS - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (latency <= UPPER_BOUNDS[mid]) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,211 @@
+package org.folio.codex.merge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.folio.codex.comparator.SortKeyComparator;
+
+/**
+ * Merges already sorted sources using a priority queue over the head element of each source,
+ * so each merged element costs O(log k) comparisons for k sources.
+ *
+ * <p>Without a comparator the sources are interleaved: the element with the lowest position in
+ * its source goes first. Ties are always resolved in favour of the source with the lowest index,
+ * which keeps the order of the sources as they were added.
+ *
+ * <p>With a {@link SortKeyComparator} the sort key of each head element is extracted once, when it
+ * becomes the head of its source, and the heap compares only the keys.
+ */
+public class KWayMerge<T> {
+
+  private static final class Cursor<T> {
+    private final int source;
+    private final List<T> items;
+    private final boolean more;
+    private int index;
+    private final Function<T, Object> keys;
+    private int position;
+    private T head;
+    private Object key;
+
+    private Cursor(int source, List<T> items, int start, boolean more, Function<T, Object> keys) {
+      this.source = source;
+      this.items = items;
+      this.more = more;
+      this.keys = keys;
+      this.position = start;
+      setHead(items.get(0));
+    }
+
+    private boolean advance() {
+      index++;
+      position++;
+      if (index < items.size()) {
+        setHead(items.get(index));
+        return true;
+      }
+      head = null;
+      key = null;
+      return false;
+    }
+
+    private void setHead(T element) {
+      head = element;
+      if (keys != null) {
+        key = keys.apply(element);
+      }
+    }
+  }
+
+  private final PriorityQueue<Cursor<T>> heap;
+  private final Function<T, Object> keys;
+  private final Set<Integer> pending = new TreeSet<>();
+  private int[] positions = new int[0];
+  private int lastSource = -1;
+
+  @SuppressWarnings("unchecked")
+  public KWayMerge(Comparator<T> comparator) {
+    Comparator<Cursor<T>> order;
+    if (comparator == null) {
+      order = Comparator.comparingInt(cursor -> cursor.position);
+      keys = null;
+    } else if (comparator instanceof SortKeyComparator) {
+      SortKeyComparator<T, Object> keyComparator = (SortKeyComparator<T, Object>) comparator;
+      order = (c1, c2) -> keyComparator.compareKeys(c1.key, c2.key);
+      keys = keyComparator::sortKey;
+    } else {
+      order = (c1, c2) -> comparator.compare(c1.head, c2.head);
+      keys = null;
+    }
+    this.heap = new PriorityQueue<>(order.thenComparingInt(cursor -> cursor.source));
+  }
+
+  /**
+   * Adds a sorted source to the merge. Empty or null sources are ignored.
+   * @param source index of the source; lower indexes win ties
+   * @param items elements of the source in sort order
+   */
+  public void addSource(int source, List<T> items) {
+    addSource(source, items, 0, false);
+  }
+
+  /**
+   * Adds a sorted source whose first start elements have already been merged earlier,
+   * e.g. when continuing a merge for the next page. Without a comparator the start
+   * position keeps the interleaving the same as if the whole source had been merged.
+   *
+   * <p>If more is true the items are only a window of the source: once the window is used up
+   * the merge stops until the source is given its next window with {@link #refill}.
+   * @param source index of the source; lower indexes win ties
+   * @param items elements of the source in sort order, starting at position start
+   * @param start position of the first of the items within the source
+   * @param more whether the source has more elements after items
+   */
+  public void addSource(int source, List<T> items, int start, boolean more) {
+    if (source >= positions.length) {
+      positions = Arrays.copyOf(positions, source + 1);
+    }
+    positions[source] = start;
+    if (items != null && !items.isEmpty()) {
+      heap.add(new Cursor<>(source, items, start, more, keys));
+    } else if (more) {
+      pending.add(source);
+    }
+  }
+
+  /**
+   * Returns the source whose window is used up and that must be refilled before the merge
+   * can go on, or -1 if no source is waiting.
+   */
+  public int getRefillSource() {
+    return pending.isEmpty() ? -1 : pending.iterator().next();
+  }
+
+  /**
+   * Gives a waiting source its next window. An empty window ends the source.
+   * @param source index of the source, as returned by {@link #getRefillSource()}
+   * @param items next elements of the source in sort order
+   * @param more whether the source has more elements after items
+   */
+  public void refill(int source, List<T> items, boolean more) {
+    if (!pending.remove(source)) {
+      throw new IllegalStateException("Source " + source + " is not waiting for a refill");
+    }
+    if (items != null && !items.isEmpty()) {
+      heap.add(new Cursor<>(source, items, positions[source], more, keys));
+    }
+  }
+
+  /**
+   * Returns the position within a source of its next element to be merged,
+   * i.e. its start plus the number of its elements returned by {@link #next()}.
+   */
+  public int position(int source) {
+    return source < positions.length ? positions[source] : 0;
+  }
+
+  /**
+   * Returns the source of the element returned last by {@link #next()}, or -1 if none.
+   */
+  public int lastSource() {
+    return lastSource;
+  }
+
+  /**
+   * Returns true if there is a next element and no source is waiting for a refill.
+   */
+  public boolean hasNext() {
+    return pending.isEmpty() && !heap.isEmpty();
+  }
+
+  /**
+   * Removes and returns the smallest element of all sources, or null if there is none
+   * or a source is waiting for a refill.
+   */
+  public T next() {
+    if (!pending.isEmpty()) {
+      return null;
+    }
+    Cursor<T> cursor = heap.poll();
+    if (cursor == null) {
+      return null;
+    }
+    T element = cursor.head;
+    lastSource = cursor.source;
+    positions[cursor.source]++;
+    if (cursor.advance()) {
+      heap.add(cursor);
+    } else if (cursor.more) {
+      pending.add(cursor.source);
+    }
+    return element;
+  }
+
+  /**
+   * Merges sources and returns the elements from offset up to offset + limit of the merged order.
+   * @param sources sorted sources, in priority order
+   * @param comparator sort order of the sources; null to interleave them
+   * @param offset number of merged elements to skip
+   * @param limit maximum number of elements to return
+   */
+  public static <T> List<T> merge(List<List<T>> sources, Comparator<T> comparator, int offset, int limit) {
+    KWayMerge<T> merge = new KWayMerge<>(comparator);
+    for (int i = 0; i < sources.size(); i++) {
+      merge.addSource(i, sources.get(i));
+    }
+    List<T> result = new ArrayList<>(Math.max(0, Math.min(limit, 1000)));
+    for (int position = 0; position < offset + limit && merge.hasNext(); position++) {
+      T element = merge.next();
+      if (position >= offset) {
+        result.add(element);
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,159 @@
+package org.folio.codex.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.Response;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import org.folio.codex.SharedObjects;
+import org.folio.codex.breaker.CircuitBreaker;
+import org.folio.codex.breaker.CircuitBreakers;
+
+/**
+ * Metrics of the multiplexer of a Vert.x instance, kept in a Prometheus registry:
+ * <ul>
+ *   <li>codex_mux_requests_seconds: latency of the requests to the multiplexer, by endpoint and status</li>
+ *   <li>codex_mux_module_requests_seconds: latency of the requests to the codex modules, by module and status</li>
+ *   <li>codex_mux_module_response_bytes: size of the responses of the codex modules, by module</li>
+ *   <li>codex_mux_module_list_seconds: time to get the codex modules of a tenant, by interface</li>
+ *   <li>codex_mux_records_received_total and codex_mux_records_merged_total: records the modules
+ *   returned and records that ended up in a page, by interface; their ratio shows how much the
+ *   modules fetch in vain</li>
+ *   <li>codex_mux_merge_seconds: time spent merging a page, not counting the waits for modules</li>
+ *   <li>codex_mux_circuit_state: state of the circuit breaker of each module, 0 closed, 1 open, 2 half open</li>
+ * </ul>
+ * With codex.mux.metrics.enabled=false nothing is recorded.
+ */
+public class MuxMetrics {
+
+  static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("codex.mux.metrics.enabled", "true"));
+
+  private static final String METRICS_KEY = "muxMetrics";
+  private static final String MODULE = "module";
+  private static final String STATUS = "status";
+  private static final String INTERFACE = "interface";
+
+  private final MeterRegistry registry;
+  private final PrometheusMeterRegistry prometheus;
+
+  MuxMetrics(boolean enabled) {
+    if (enabled) {
+      prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+      registry = prometheus;
+    } else {
+      prometheus = null;
+      registry = new CompositeMeterRegistry();
+    }
+  }
+
+  /**
+   * Returns the metrics of a Vert.x instance.
+   */
+  public static MuxMetrics get(Vertx vertx) {
+    return SharedObjects.get(vertx, METRICS_KEY, () -> new MuxMetrics(ENABLED));
+  }
+
+  public boolean isEnabled() {
+    return prometheus != null;
+  }
+
+  /**
+   * Returns handler wrapped so that the latency and status of the request to endpoint are
+   * recorded when the response is handed to it.
+   * @param start System.nanoTime() when the request arrived
+   */
+  public Handler<AsyncResult<Response>> timeRequest(String endpoint, long start,
+                                                    Handler<AsyncResult<Response>> handler) {
+    if (!isEnabled()) {
+      return handler;
+    }
+    return res -> {
+      final String status = res.succeeded() ? Integer.toString(res.result().getStatus()) : "error";
+      Timer.builder("codex.mux.requests")
+        .tag("endpoint", endpoint)
+        .tag(STATUS, status)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      handler.handle(res);
+    };
+  }
+
+  /**
+   * Records a request to a module.
+   * @param status HTTP status, or a name of the failure such as timeout
+   * @param bytes size of the response body, or -1 if there was no response
+   */
+  public void recordModuleRequest(String module, String status, long nanos, long bytes) {
+    Timer.builder("codex.mux.module.requests")
+      .tag(MODULE, module)
+      .tag(STATUS, status)
+      .publishPercentileHistogram()
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+    if (bytes >= 0) {
+      DistributionSummary.builder("codex.mux.module.response")
+        .baseUnit("bytes")
+        .tag(MODULE, module)
+        .register(registry)
+        .record(bytes);
+    }
+  }
+
+  public void recordModuleList(String codexInterface, long nanos) {
+    Timer.builder("codex.mux.module.list")
+      .tag(INTERFACE, codexInterface)
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordRecordsReceived(String codexInterface, int records) {
+    Counter.builder("codex.mux.records.received")
+      .tag(INTERFACE, codexInterface)
+      .register(registry)
+      .increment(records);
+  }
+
+  /**
+   * Records a merged page.
+   * @param records records in the page
+   * @param nanos time spent merging
+   */
+  public void recordMerge(String codexInterface, int records, long nanos) {
+    Counter.builder("codex.mux.records.merged")
+      .tag(INTERFACE, codexInterface)
+      .register(registry)
+      .increment(records);
+    Timer.builder("codex.mux.merge")
+      .tag(INTERFACE, codexInterface)
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the metrics in the Prometheus text format, including the state of the circuit breakers.
+   */
+  public String scrape(CircuitBreakers breakers) {
+    if (!isEnabled()) {
+      return "";
+    }
+    for (CircuitBreaker breaker : breakers.getAll()) {
+      // registering is idempotent, so breakers created since the last scrape are added
+      Gauge.builder("codex.mux.circuit.state", breaker, b -> b.getState().ordinal())
+        .tag(MODULE, breaker.getModule())
+        .register(registry);
+    }
+    return prometheus.scrape();
+  }
+}
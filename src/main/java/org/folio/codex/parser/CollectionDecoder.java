@@ -0,0 +1,102 @@
+package org.folio.codex.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import org.folio.codex.Multiplexer;
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+/**
+ * Decodes a codex collection response (instances, packages, ...) straight from the response
+ * buffer into a {@link Multiplexer.CollectionExtension} in a single streaming pass.
+ * Responses of older codex modules that have a top level totalRecords instead of
+ * resultInfo are normalised to a resultInfo with that total.
+ */
+public class CollectionDecoder {
+
+  static final String TOTAL_RECORDS = "totalRecords";
+  static final String RESULT_INFO = "resultInfo";
+
+  private CollectionDecoder() {
+  }
+
+  /**
+   * Decodes buffer into a collection extension.
+   * @param buffer response body
+   * @param itemsField name of the array holding the items, e.g. "instances"
+   * @param itemClass class of the items
+   * @return decoded collection, or null if the body is the JSON literal null
+   * @throws DecodeException if the body is not a valid collection
+   */
+  public static <T> Multiplexer.CollectionExtension<T> decode(Buffer buffer, String itemsField, Class<T> itemClass) {
+    ObjectMapper mapper = DatabindCodec.mapper();
+    try (JsonParser parser = createParser(mapper.getFactory(), buffer)) {
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.VALUE_NULL) {
+        return null;
+      }
+      if (token != JsonToken.START_OBJECT) {
+        throw new DecodeException("Expected a JSON object but got " + token);
+      }
+      List<T> items = new ArrayList<>();
+      ResultInfo resultInfo = null;
+      Integer totalRecords = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String field = parser.getCurrentName();
+        token = parser.nextToken();
+        if (itemsField.equals(field) && token == JsonToken.START_ARRAY) {
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            items.add(mapper.readValue(parser, itemClass));
+          }
+        } else if (RESULT_INFO.equals(field) && token == JsonToken.START_OBJECT) {
+          resultInfo = mapper.readValue(parser, ResultInfo.class);
+        } else if (TOTAL_RECORDS.equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+          totalRecords = parser.getIntValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      return collection(items, resultInfo, totalRecords);
+    } catch (IOException e) {
+      throw new DecodeException("Failed to decode " + itemsField + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the collection of decoded items, with a resultInfo made from the legacy totalRecords
+   * if the response had no resultInfo.
+   */
+  static <T> Multiplexer.CollectionExtension<T> collection(List<T> items, ResultInfo resultInfo,
+                                                           Integer totalRecords) {
+    if (resultInfo == null) {
+      resultInfo = new ResultInfo()
+        .withTotalRecords(totalRecords)
+        .withFacets(new ArrayList<>())
+        .withDiagnostics(new ArrayList<>());
+    }
+    Multiplexer.CollectionExtension<T> collectionExt = new Multiplexer.CollectionExtension<>();
+    collectionExt.setItems(items);
+    collectionExt.setResultInfo(resultInfo);
+    return collectionExt;
+  }
+
+  private static JsonParser createParser(JsonFactory factory, Buffer buffer) throws IOException {
+    ByteBuf byteBuf = buffer.getByteBuf();
+    if (byteBuf.hasArray()) {
+      return factory.createParser(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(),
+        byteBuf.readableBytes());
+    }
+    return factory.createParser(new ByteBufInputStream(byteBuf));
+  }
+}
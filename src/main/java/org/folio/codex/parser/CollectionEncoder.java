@@ -0,0 +1,114 @@
+package org.folio.codex.parser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+/**
+ * Encodes a codex collection response (instances, packages, ...) one item at a time, so that the
+ * merge can serialize each record as soon as it is merged instead of first collecting the page.
+ * The items are written to the items array; {@link #finish} appends the resultInfo and returns
+ * the encoded collection backed by an array of its exact size, so that it can be sent and cached
+ * without another copy.
+ */
+public class CollectionEncoder<T> {
+
+  private static final String RESULT_INFO = "resultInfo";
+
+  private final ObjectMapper mapper = DatabindCodec.mapper();
+  private final Buffer buffer = Buffer.buffer();
+  private final JsonGenerator generator;
+
+  /**
+   * @param itemsField name of the array holding the items, e.g. "instances"
+   * @throws EncodeException if the collection cannot be started
+   */
+  public CollectionEncoder(String itemsField) {
+    try {
+      generator = mapper.getFactory().createGenerator(new BufferOutputStream(buffer));
+      generator.writeStartObject();
+      generator.writeArrayFieldStart(itemsField);
+    } catch (IOException e) {
+      throw new EncodeException("Failed to start collection: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Appends an item to the items array.
+   * @throws EncodeException if the item cannot be encoded
+   */
+  public void write(T item) {
+    try {
+      mapper.writeValue(generator, item);
+    } catch (IOException e) {
+      throw new EncodeException("Failed to encode item: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Ends the items array, appends resultInfo and returns the encoded collection.
+   * @throws EncodeException if the result info cannot be encoded
+   */
+  public Buffer finish(ResultInfo resultInfo) {
+    try {
+      generator.writeEndArray();
+      generator.writeFieldName(RESULT_INFO);
+      mapper.writeValue(generator, resultInfo);
+      generator.writeEndObject();
+      generator.close();
+      return exactSize(buffer);
+    } catch (IOException e) {
+      throw new EncodeException("Failed to encode resultInfo: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns buffer if it is backed by an array of its length, otherwise a buffer that wraps a copy
+   * of its bytes; the growable array of buffer is then left to the garbage collector.
+   */
+  private static Buffer exactSize(Buffer buffer) {
+    if (array(buffer) != null) {
+      return buffer;
+    }
+    return Buffer.buffer(Unpooled.wrappedBuffer(buffer.getBytes()));
+  }
+
+  /**
+   * Returns the array behind buffer if it holds exactly the bytes of buffer, null otherwise.
+   */
+  public static byte[] array(Buffer buffer) {
+    final ByteBuf byteBuf = buffer.getByteBuf();
+    if (byteBuf.hasArray() && byteBuf.arrayOffset() == 0 && byteBuf.readerIndex() == 0
+      && byteBuf.readableBytes() == byteBuf.array().length) {
+      return byteBuf.array();
+    }
+    return null;
+  }
+
+  private static class BufferOutputStream extends OutputStream {
+    private final Buffer buffer;
+
+    BufferOutputStream(Buffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+      buffer.appendByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      buffer.appendBytes(b, off, len);
+    }
+  }
+}
@@ -1,24 +1,24 @@
 package org.folio.codex.parser;
 
-import io.vertx.core.json.Json;
+import io.vertx.core.buffer.Buffer;
 
 import org.folio.codex.Multiplexer;
 import org.folio.rest.jaxrs.model.Package;
-import org.folio.rest.jaxrs.model.PackageCollection;
 
 public class PackageCollectionParser {
 
   private PackageCollectionParser() {
   }
 
+  public static Multiplexer.CollectionExtension<Package> parsePackageCollection(Buffer buffer){
+    return CollectionDecoder.decode(buffer, "packages", Package.class);
+  }
+
   public static Multiplexer.CollectionExtension<Package> parsePackageCollection(String jsonObject){
-    PackageCollection value = Json.decodeValue(jsonObject, PackageCollection.class);
-    if(value == null){
-      return null;
-    }
-    Multiplexer.CollectionExtension<Package> collectionExt = new Multiplexer.CollectionExtension<>();
-    collectionExt.setItems(value.getPackages());
-    collectionExt.setResultInfo(value.getResultInfo());
-    return collectionExt;
+    return parsePackageCollection(Buffer.buffer(jsonObject));
+  }
+
+  public static StreamingCollectionDecoder<Package> streamPackageCollection() {
+    return new StreamingCollectionDecoder<>("packages", Package.class);
   }
 }
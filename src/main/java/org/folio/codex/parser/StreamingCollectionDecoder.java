@@ -0,0 +1,263 @@
+package org.folio.codex.parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+import io.vertx.core.streams.WriteStream;
+
+import org.folio.codex.Multiplexer;
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+/**
+ * Decodes a codex collection response while it is received, so that the items are bound as their
+ * bytes arrive instead of after the whole body has been buffered. The body is fed chunk by chunk
+ * to a non-blocking Jackson parser; the tokens of each item are collected and bound as soon as
+ * the item is complete.
+ *
+ * <p>The raw body is kept only until the items array starts, so that error responses, which have
+ * no items, can still be reported as they were received.
+ */
+public class StreamingCollectionDecoder<T> implements WriteStream<Buffer> {
+
+  private enum State { TOP, FIELDS, VALUE, ITEMS, CAPTURE, DONE }
+
+  private final ObjectMapper mapper = DatabindCodec.mapper();
+  private final String itemsField;
+  private final Class<T> itemClass;
+  private final JsonParser parser;
+  private final ByteArrayFeeder feeder;
+  private final List<T> items = new ArrayList<>();
+  private Buffer raw = Buffer.buffer();
+  private ResultInfo resultInfo;
+  private Integer totalRecords;
+  private boolean nullBody;
+  private DecodeException failure;
+  private long bytesReceived;
+
+  private State state = State.TOP;
+  private String field;
+  private TokenBuffer capture;
+  private Class<?> captureClass;
+  private State captureReturn;
+  private int captureDepth;
+
+  /**
+   * @param itemsField name of the array holding the items, e.g. "instances"
+   * @param itemClass class of the items
+   */
+  public StreamingCollectionDecoder(String itemsField, Class<T> itemClass) {
+    this.itemsField = itemsField;
+    this.itemClass = itemClass;
+    try {
+      this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+    } catch (IOException e) {
+      throw new DecodeException("Failed to create parser: " + e.getMessage(), e);
+    }
+    this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  /**
+   * Returns the decoded collection, or null if the body was the JSON literal null.
+   * @throws DecodeException if the body is not a valid collection
+   */
+  public Multiplexer.CollectionExtension<T> getCollection() {
+    if (failure != null) {
+      throw failure;
+    }
+    if (nullBody) {
+      return null;
+    }
+    if (state != State.DONE) {
+      throw new DecodeException("Failed to decode " + itemsField + ": unexpected end of input");
+    }
+    return CollectionDecoder.collection(items, resultInfo, totalRecords);
+  }
+
+  /**
+   * Returns the body as received if it had no items array, e.g. the message of an error
+   * response; otherwise the part of the body before the items.
+   */
+  public Buffer getRaw() {
+    return raw != null ? raw : Buffer.buffer();
+  }
+
+  /**
+   * Returns the number of bytes of the body received so far.
+   */
+  public long getBytesReceived() {
+    return bytesReceived;
+  }
+
+  @Override
+  public Future<Void> write(Buffer data) {
+    bytesReceived += data.length();
+    if (raw != null) {
+      raw.appendBuffer(data);
+    }
+    if (failure == null && state != State.DONE) {
+      try {
+        byte[] bytes = data.getBytes();
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+      } catch (IOException | DecodeException e) {
+        fail(e);
+      }
+    }
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public void write(Buffer data, Handler<AsyncResult<Void>> handler) {
+    write(data).onComplete(handler);
+  }
+
+  @Override
+  public Future<Void> end() {
+    if (failure == null && state != State.DONE) {
+      feeder.endOfInput();
+      try {
+        drain();
+      } catch (IOException | DecodeException e) {
+        fail(e);
+      }
+    }
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public void end(Handler<AsyncResult<Void>> handler) {
+    end().onComplete(handler);
+  }
+
+  @Override
+  public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+    return this;
+  }
+
+  @Override
+  public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return false;
+  }
+
+  @Override
+  public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+    return this;
+  }
+
+  private void fail(Exception e) {
+    failure = e instanceof DecodeException ? (DecodeException) e
+      : new DecodeException("Failed to decode " + itemsField + ": " + e.getMessage(), e);
+  }
+
+  private void drain() throws IOException {
+    JsonToken token;
+    while (state != State.DONE && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      handle(token);
+    }
+  }
+
+  private void handle(JsonToken token) throws IOException {
+    switch (state) {
+      case TOP:
+        if (token == JsonToken.VALUE_NULL) {
+          nullBody = true;
+          state = State.DONE;
+        } else if (token == JsonToken.START_OBJECT) {
+          state = State.FIELDS;
+        } else {
+          throw new DecodeException("Expected a JSON object but got " + token);
+        }
+        break;
+      case FIELDS:
+        if (token == JsonToken.END_OBJECT) {
+          state = State.DONE;
+        } else {
+          field = parser.getCurrentName();
+          state = State.VALUE;
+        }
+        break;
+      case VALUE:
+        handleValue(token);
+        break;
+      case ITEMS:
+        if (token == JsonToken.END_ARRAY) {
+          state = State.FIELDS;
+        } else {
+          startCapture(itemClass, State.ITEMS, token);
+        }
+        break;
+      case CAPTURE:
+        captureToken(token);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void handleValue(JsonToken token) throws IOException {
+    if (itemsField.equals(field) && token == JsonToken.START_ARRAY) {
+      // from here on the body is a collection, not an error message
+      raw = null;
+      state = State.ITEMS;
+    } else if (CollectionDecoder.RESULT_INFO.equals(field) && token == JsonToken.START_OBJECT) {
+      startCapture(ResultInfo.class, State.FIELDS, token);
+    } else if (CollectionDecoder.TOTAL_RECORDS.equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+      totalRecords = parser.getIntValue();
+      state = State.FIELDS;
+    } else {
+      // skip other fields
+      startCapture(null, State.FIELDS, token);
+    }
+  }
+
+  private void startCapture(Class<?> cls, State returnState, JsonToken token) throws IOException {
+    captureClass = cls;
+    capture = cls != null ? new TokenBuffer(mapper, false) : null;
+    captureReturn = returnState;
+    captureDepth = 0;
+    state = State.CAPTURE;
+    captureToken(token);
+  }
+
+  private void captureToken(JsonToken token) throws IOException {
+    if (capture != null) {
+      capture.copyCurrentEvent(parser);
+    }
+    if (token.isStructStart()) {
+      captureDepth++;
+    } else if (token.isStructEnd()) {
+      captureDepth--;
+    }
+    if (captureDepth > 0) {
+      return;
+    }
+    if (capture != null) {
+      try (JsonParser captured = capture.asParser(mapper)) {
+        if (captureClass == ResultInfo.class) {
+          resultInfo = mapper.readValue(captured, ResultInfo.class);
+        } else {
+          items.add(mapper.readValue(captured, itemClass));
+        }
+      }
+    }
+    capture = null;
+    state = captureReturn;
+  }
+}
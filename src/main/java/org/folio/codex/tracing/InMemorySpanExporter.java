@@ -0,0 +1,55 @@
+package org.folio.codex.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the last maxSpans spans in memory, for tests and for looking at traces of a running
+ * instance without a tracing backend.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+  private final int maxSpans;
+  private final Deque<Span> spans = new ArrayDeque<>();
+
+  public InMemorySpanExporter(int maxSpans) {
+    this.maxSpans = maxSpans;
+  }
+
+  @Override
+  public synchronized void export(Span span) {
+    if (maxSpans <= 0) {
+      return;
+    }
+    if (spans.size() >= maxSpans) {
+      spans.removeFirst();
+    }
+    spans.addLast(span);
+  }
+
+  /**
+   * Returns the kept spans in the order they ended.
+   */
+  public synchronized List<Span> getSpans() {
+    return new ArrayList<>(spans);
+  }
+
+  /**
+   * Returns the kept spans of a trace in the order they ended.
+   */
+  public synchronized List<Span> getSpans(String traceId) {
+    List<Span> trace = new ArrayList<>();
+    for (Span span : spans) {
+      if (span.getTraceId().equals(traceId)) {
+        trace.add(span);
+      }
+    }
+    return trace;
+  }
+
+  public synchronized void clear() {
+    spans.clear();
+  }
+}
@@ -0,0 +1,30 @@
+package org.folio.codex.tracing;
+
+import io.vertx.core.json.JsonObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes each span as one line of JSON to the codex.mux.trace logger, so traces can be read
+ * from the log without a tracing backend.
+ */
+public class LoggingSpanExporter implements SpanExporter {
+
+  private static final Logger logger = LogManager.getLogger("codex.mux.trace");
+
+  @Override
+  public void export(Span span) {
+    if (!logger.isInfoEnabled()) {
+      return;
+    }
+    JsonObject json = new JsonObject()
+      .put("traceId", span.getTraceId())
+      .put("spanId", span.getSpanId())
+      .put("parentSpanId", span.getParentSpanId())
+      .put("name", span.getName())
+      .put("start", span.getStartMillis())
+      .put("durationMs", span.getDurationNanos() / 1e6)
+      .put("attributes", new JsonObject(span.getAttributes()));
+    logger.info(json.encode());
+  }
+}
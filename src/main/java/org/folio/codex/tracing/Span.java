@@ -0,0 +1,162 @@
+package org.folio.codex.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.ws.rs.core.Response;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+/**
+ * A timed operation of a trace, such as a request to a module or a merge. Spans are exported
+ * when they end; a span of a disabled {@link Tracer} records nothing.
+ *
+ * <p>The context of a span travels in the W3C traceparent header of the Okapi headers, so the
+ * headers that a span {@link #inject injects} into carry it to the codex modules and to the
+ * child spans started from them.
+ */
+public class Span {
+
+  static final Span NOOP = new Span(null, null, null, null, null, null);
+
+  private final Tracer tracer;
+  private final String name;
+  private final String traceId;
+  private final String spanId;
+  private final String parentSpanId;
+  private final String flags;
+  private final long startMillis;
+  private final long startNanos;
+  private final Map<String, Object> attributes = new LinkedHashMap<>();
+  private long durationNanos = -1;
+
+  Span(Tracer tracer, String name, String traceId, String spanId, String parentSpanId, String flags) {
+    this.tracer = tracer;
+    this.name = name;
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.parentSpanId = parentSpanId;
+    this.flags = flags;
+    this.startMillis = System.currentTimeMillis();
+    this.startNanos = System.nanoTime();
+  }
+
+  public boolean isRecording() {
+    return tracer != null;
+  }
+
+  /**
+   * Sets an attribute of the span, e.g. the module it went to; null values are ignored.
+   */
+  public Span setAttribute(String key, Object value) {
+    if (tracer != null && value != null) {
+      synchronized (attributes) {
+        attributes.put(key, value);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Starts a span whose parent is this span.
+   */
+  public Span startChild(String childName) {
+    if (tracer == null) {
+      return NOOP;
+    }
+    return new Span(tracer, childName, traceId, Tracer.newId(16), spanId, flags);
+  }
+
+  /**
+   * Ends the span and exports it. Only the first call has an effect.
+   */
+  public void end() {
+    if (tracer == null) {
+      return;
+    }
+    synchronized (this) {
+      if (durationNanos >= 0) {
+        return;
+      }
+      durationNanos = System.nanoTime() - startNanos;
+    }
+    tracer.export(this);
+  }
+
+  /**
+   * Returns handler wrapped so that the span ends, with the status of the response, when the
+   * response is handed to it.
+   */
+  public Handler<AsyncResult<Response>> endOnResponse(Handler<AsyncResult<Response>> handler) {
+    if (tracer == null) {
+      return handler;
+    }
+    return res -> {
+      if (res.succeeded()) {
+        setAttribute("status", res.result().getStatus());
+      } else {
+        setAttribute("error", String.valueOf(res.cause().getMessage()));
+      }
+      end();
+      handler.handle(res);
+    };
+  }
+
+  /**
+   * Returns a copy of headers whose traceparent names this span as the parent, or headers
+   * itself if the span does not record. Like the headers RMB hands over, the copy ignores the
+   * case of header names.
+   */
+  public Map<String, String> inject(Map<String, String> headers) {
+    if (tracer == null) {
+      return headers;
+    }
+    Map<String, String> injected = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    injected.putAll(headers);
+    injected.put(Tracer.TRACEPARENT, getTraceparent());
+    return injected;
+  }
+
+  public String getTraceparent() {
+    return "00-" + traceId + '-' + spanId + '-' + flags;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getTraceId() {
+    return traceId;
+  }
+
+  public String getSpanId() {
+    return spanId;
+  }
+
+  /**
+   * Returns the id of the parent span, or null for the root span of a trace.
+   */
+  public String getParentSpanId() {
+    return parentSpanId;
+  }
+
+  public long getStartMillis() {
+    return startMillis;
+  }
+
+  /**
+   * Returns the duration of the span in nanoseconds, or -1 if it has not ended.
+   */
+  public synchronized long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public Map<String, Object> getAttributes() {
+    synchronized (attributes) {
+      return Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+  }
+}
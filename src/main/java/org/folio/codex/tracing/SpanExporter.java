@@ -0,0 +1,9 @@
+package org.folio.codex.tracing;
+
+/**
+ * Receives the spans of a {@link Tracer} as they end.
+ */
+public interface SpanExporter {
+
+  void export(Span span);
+}
@@ -0,0 +1,146 @@
+package org.folio.codex.tracing;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.vertx.core.Vertx;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.codex.SharedObjects;
+
+/**
+ * Starts the spans of the multiplexer of a Vert.x instance and hands them to an exporter when they
+ * end. The exporter is chosen with codex.mux.tracing.exporter when the tracer of a Vert.x instance
+ * is created: none (the default) records nothing, log writes the spans to the log with
+ * {@link LoggingSpanExporter}, memory keeps the last codex.mux.tracing.memory.maxSpans spans with
+ * {@link InMemorySpanExporter}.
+ *
+ * <p>Trace context is written to the W3C traceparent header of the requests to the codex modules,
+ * so a trace continues in the modules. RMB only hands X-Okapi headers to the resources, so the
+ * traceparent of an incoming request is not seen and each request to the multiplexer starts a
+ * new trace.
+ */
+public class Tracer {
+
+  public static final String TRACEPARENT = "traceparent";
+
+  static final String EXPORTER_PROPERTY = "codex.mux.tracing.exporter";
+  static final int MAX_SPANS = Integer.getInteger("codex.mux.tracing.memory.maxSpans", 1000);
+
+  private static final Logger logger = LogManager.getLogger("codex.mux");
+  private static final String TRACER_KEY = "tracer";
+  private static final String SAMPLED = "01";
+
+  private final SpanExporter exporter;
+
+  Tracer(SpanExporter exporter) {
+    this.exporter = exporter;
+  }
+
+  /**
+   * Returns the tracer of a Vert.x instance.
+   */
+  public static Tracer get(Vertx vertx) {
+    return SharedObjects.get(vertx, TRACER_KEY,
+      () -> new Tracer(createExporter(System.getProperty(EXPORTER_PROPERTY, "none"))));
+  }
+
+  /**
+   * Returns the exporter called name, or null for none; an unknown name is logged and traces
+   * nothing, so that a typo in the configuration does not fail the requests.
+   */
+  static SpanExporter createExporter(String name) {
+    switch (name.toLowerCase(Locale.ROOT)) {
+      case "log":
+        return new LoggingSpanExporter();
+      case "memory":
+        return new InMemorySpanExporter(MAX_SPANS);
+      case "none":
+        return null;
+      default:
+        logger.warn("Unknown {} {}, tracing is disabled", EXPORTER_PROPERTY, name);
+        return null;
+    }
+  }
+
+  public boolean isEnabled() {
+    return exporter != null;
+  }
+
+  /**
+   * Returns the exporter, or null if tracing is disabled.
+   */
+  public SpanExporter getExporter() {
+    return exporter;
+  }
+
+  /**
+   * Starts a span whose parent is given by the traceparent of headers, as injected by
+   * {@link Span#inject}; without a valid traceparent the span starts a new trace.
+   */
+  public Span startSpan(String name, Map<String, String> headers) {
+    if (!isEnabled()) {
+      return Span.NOOP;
+    }
+    final String traceparent = headers != null ? headers.get(TRACEPARENT) : null;
+    if (isValid(traceparent)) {
+      return new Span(this, name, traceparent.substring(3, 35), newId(16), traceparent.substring(36, 52),
+        traceparent.substring(53, 55));
+    }
+    return new Span(this, name, newId(32), newId(16), null, SAMPLED);
+  }
+
+  void export(Span span) {
+    try {
+      exporter.export(span);
+    } catch (RuntimeException e) {
+      // a broken exporter must not fail the request
+      logger.warn("Exporting span {} failed: {}", span.getName(), e.getMessage());
+    }
+  }
+
+  /**
+   * Returns true if traceparent is a version 00 header with non-zero ids.
+   */
+  static boolean isValid(String traceparent) {
+    if (traceparent == null || traceparent.length() != 55 || !traceparent.startsWith("00-")
+      || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+      return false;
+    }
+    for (int i = 3; i < 55; i++) {
+      char c = traceparent.charAt(i);
+      if (i != 35 && i != 52 && !(c >= '0' && c <= '9' || c >= 'a' && c <= 'f')) {
+        return false;
+      }
+    }
+    return !isZero(traceparent, 3, 35) && !isZero(traceparent, 36, 52);
+  }
+
+  private static boolean isZero(String s, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (s.charAt(i) != '0') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static String newId(int hexDigits) {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    StringBuilder sb = new StringBuilder(hexDigits);
+    while (sb.length() < hexDigits) {
+      long bits = random.nextLong();
+      if (bits == 0) {
+        continue;
+      }
+      String hex = Long.toHexString(bits);
+      for (int i = hex.length(); i < 16; i++) {
+        sb.append('0');
+      }
+      sb.append(hex);
+    }
+    return sb.substring(0, hexDigits);
+  }
+}
@@ -0,0 +1,52 @@
+package org.folio.rest.impl;
+
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.folio.codex.ModuleListCache;
+import org.folio.codex.PageCache;
+import org.folio.codex.SearchResultCache;
+import org.folio.codex.breaker.CircuitBreakers;
+import org.folio.codex.metrics.MuxMetrics;
+import org.folio.common.OkapiParams;
+import org.folio.rest.jaxrs.resource.CodexMuxAdmin;
+
+public class CodexMuxAdminImpl implements CodexMuxAdmin {
+
+  private static Logger logger = LogManager.getLogger(CodexMuxAdminImpl.class);
+
+  @Override
+  public void deleteCodexMuxAdminModuleCache(Map<String, String> okapiHeaders,
+                                             Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    OkapiParams okapiParams;
+    try {
+      okapiParams = new OkapiParams(okapiHeaders);
+    } catch (IllegalArgumentException ex) {
+      asyncResultHandler.handle(Future.succeededFuture(
+        DeleteCodexMuxAdminModuleCacheResponse.respond400WithTextPlain(
+          "Validation of okapi headers failed: " + ex.getMessage())));
+      return;
+    }
+    logger.info("Invalidating module cache of tenant {}", okapiParams.getTenant());
+    ModuleListCache.get(vertxContext.owner()).invalidate(okapiParams.getTenant());
+    // results cached for the old module list must not outlive it
+    SearchResultCache.get(vertxContext.owner()).invalidate(okapiParams.getTenant());
+    PageCache.get(vertxContext.owner()).invalidate(okapiParams.getTenant());
+    asyncResultHandler.handle(Future.succeededFuture(DeleteCodexMuxAdminModuleCacheResponse.respond204()));
+  }
+
+  @Override
+  public void getCodexMuxAdminMetrics(Map<String, String> okapiHeaders,
+                                      Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    final String metrics = MuxMetrics.get(vertxContext.owner()).scrape(CircuitBreakers.get(vertxContext.owner()));
+    asyncResultHandler.handle(Future.succeededFuture(GetCodexMuxAdminMetricsResponse.respond200WithTextPlain(metrics)));
+  }
+}
@@ -13,6 +13,9 @@ import org.apache.logging.log4j.Logger;
 
 import org.folio.codex.Mock;
 import org.folio.codex.Multiplexer;
+import org.folio.codex.metrics.MuxMetrics;
+import org.folio.codex.tracing.Span;
+import org.folio.codex.tracing.Tracer;
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.resource.CodexInstances;
@@ -32,7 +35,7 @@ public class CodexMuxImpl implements CodexInstances {
       }
       return mux;
     } else {
-      logger.info("Impl get module = {}", module);
+      logger.debug("Impl get module = {}", module);
 
       mock.computeIfAbsent(module, s -> new Mock(module));
 
@@ -46,8 +49,12 @@ public class CodexMuxImpl implements CodexInstances {
     Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
     Context vertxContext) {
 
-    get(okapiHeaders).getCodexInstances(query, offset, limit, lang,
-      okapiHeaders, asyncResultHandler, vertxContext);
+    final Span span = Tracer.get(vertxContext.owner()).startSpan("GET /codex-instances", okapiHeaders)
+      .setAttribute("query", query);
+    get(okapiHeaders).getCodexInstances(query, offset, limit, lang, span.inject(okapiHeaders),
+      MuxMetrics.get(vertxContext.owner()).timeRequest("codex-instances", System.nanoTime(),
+        span.endOnResponse(asyncResultHandler)),
+      vertxContext);
   }
 
   @Override
@@ -55,8 +62,12 @@ public class CodexMuxImpl implements CodexInstances {
     Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
     Context vertxContext) {
 
-    get(okapiHeaders).getCodexInstancesById(id, lang,
-      okapiHeaders, asyncResultHandler, vertxContext);
+    final Span span = Tracer.get(vertxContext.owner()).startSpan("GET /codex-instances/{id}", okapiHeaders)
+      .setAttribute("id", id);
+    get(okapiHeaders).getCodexInstancesById(id, lang, span.inject(okapiHeaders),
+      MuxMetrics.get(vertxContext.owner()).timeRequest("codex-instances-by-id", System.nanoTime(),
+        span.endOnResponse(asyncResultHandler)),
+      vertxContext);
   }
 
 }
@@ -1,11 +1,8 @@
 package org.folio.rest.impl;
 
-import static org.folio.codex.ResultInformation.analyzeResult;
-
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import javax.ws.rs.core.Response;
 
@@ -13,6 +10,7 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -21,15 +19,19 @@ import org.folio.codex.CodexInterfaces;
 import org.folio.codex.MergeRequest;
 import org.folio.codex.Multiplexer;
 import org.folio.codex.OkapiClient;
+import org.folio.codex.RequestTiming;
 import org.folio.codex.comparator.PackageComparator;
 import org.folio.codex.exception.GetModulesFailException;
 import org.folio.codex.exception.QueryValidationException;
+import org.folio.codex.metrics.MuxMetrics;
+import org.folio.codex.parser.CollectionEncoder;
 import org.folio.codex.parser.PackageCollectionParser;
+import org.folio.codex.tracing.Span;
+import org.folio.codex.tracing.Tracer;
 import org.folio.common.OkapiParams;
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Package;
-import org.folio.rest.jaxrs.model.PackageCollection;
 import org.folio.rest.jaxrs.resource.CodexPackages;
 
 public class CodexPackagesImpl implements CodexPackages {
@@ -42,6 +44,14 @@ public class CodexPackagesImpl implements CodexPackages {
   @Validate
   public void getCodexPackages(String query, int offset, int limit, String lang, Map<String, String> okapiHeaders,
                                Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
+    final Span span = Tracer.get(vertxContext.owner()).startSpan("GET /codex-packages", okapiHeaders)
+      .setAttribute("query", query);
+    searchPackages(query, offset, limit, span.inject(okapiHeaders), MuxMetrics.get(vertxContext.owner())
+      .timeRequest("codex-packages", System.nanoTime(), span.endOnResponse(asyncResultHandler)), vertxContext);
+  }
+
+  private void searchPackages(String query, int offset, int limit, Map<String, String> okapiHeaders,
+                              Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
     OkapiParams okapiParams;
     try{
@@ -53,14 +63,12 @@ public class CodexPackagesImpl implements CodexPackages {
       return;
     }
 
+    final RequestTiming timing = RequestTiming.of(okapiHeaders);
     okapiClient.getModuleList(vertxContext, okapiParams, CodexInterfaces.CODEX_PACKAGES)
-      .compose(moduleList -> getPackageCollectionExtension(query, offset, limit, okapiHeaders, vertxContext, moduleList))
-      .map(packageCollectionExtension -> {
-        asyncResultHandler.handle(Future.succeededFuture(
-          GetCodexPackagesResponse.respond200WithApplicationJson(
-            new PackageCollection()
-              .withPackages(packageCollectionExtension != null ? packageCollectionExtension.getItems() : null)
-              .withResultInfo(packageCollectionExtension != null ? packageCollectionExtension.getResultInfo() : null))));
+      .compose(moduleList -> getPackageCollection(query, offset, limit, okapiHeaders, vertxContext, moduleList,
+        timing))
+      .map(packageCollection -> {
+        asyncResultHandler.handle(Future.succeededFuture(Multiplexer.jsonResponse(packageCollection)));
         return null;
       })
       .otherwise(throwable -> {
@@ -78,32 +86,43 @@ public class CodexPackagesImpl implements CodexPackages {
       });
   }
 
-  private Future<Multiplexer.CollectionExtension<Package>> getPackageCollectionExtension(
-    String query, int offset, int limit, Map<String, String> okapiHeaders, Context vertxContext, List<String> moduleList) {
+  @SuppressWarnings({"squid:S00107"})
+  private Future<Buffer> getPackageCollection(String query, int offset, int limit, Map<String, String> okapiHeaders,
+                                              Context vertxContext, List<String> moduleList, RequestTiming timing) {
 
     CQLParameters<Package> cqlParameters = new CQLParameters<>(query);
-    cqlParameters.setComparator(PackageComparator.get(cqlParameters.getCQLSortNode()));
+    cqlParameters.setComparator(Package.class, PackageComparator::get);
 
+    final CollectionEncoder<Package> encoder = new CollectionEncoder<>("packages");
     final MergeRequest<Package> mergeRequest = new MergeRequest.MergeRequestBuilder<Package>()
       .setLimit(limit)
       .setOffset(offset)
       .setVertxContext(vertxContext)
       .setHeaders(okapiHeaders)
       .setMuxCollectionMap(new LinkedHashMap<>())
+      .setIdGetter(Package::getId)
+      .setEncoder(encoder)
+      .setDecoders(PackageCollectionParser::streamPackageCollection)
+      .setTiming(timing)
       .build();
 
-    return multiplexer.mergeSort(moduleList, cqlParameters, mergeRequest, CodexInterfaces.CODEX_PACKAGES,
-      PackageCollectionParser::parsePackageCollection).compose(packageCollectionExtension -> {
-        analyzeResult(mergeRequest.getMuxCollectionMap(), packageCollectionExtension);
-        return Future.succeededFuture(packageCollectionExtension);
-      });
+    return multiplexer.searchCollection(moduleList, cqlParameters, mergeRequest, CodexInterfaces.CODEX_PACKAGES,
+      PackageCollectionParser::parsePackageCollection);
   }
 
   @Override
   public void getCodexPackagesById(String id, String lang, Map<String, String> okapiHeaders,
                                    Handler<AsyncResult<Response>> handler, Context vertxContext) {
+    final Span span = Tracer.get(vertxContext.owner()).startSpan("GET /codex-packages/{id}", okapiHeaders)
+      .setAttribute("id", id);
+    getPackageById(id, span.inject(okapiHeaders), MuxMetrics.get(vertxContext.owner())
+      .timeRequest("codex-packages-by-id", System.nanoTime(), span.endOnResponse(handler)), vertxContext);
+  }
+
+  private void getPackageById(String id, Map<String, String> okapiHeaders,
+                              Handler<AsyncResult<Response>> handler, Context vertxContext) {
 
-    logger.info("CodexPackagesImpl#getCodexPackagesById");
+    logger.debug("CodexPackagesImpl#getCodexPackagesById");
 
     OkapiParams okapiParams;
     try{
@@ -120,13 +139,9 @@ public class CodexPackagesImpl implements CodexPackages {
 
     okapiClient.getModuleList(vertxContext, okapiParams, CodexInterfaces.CODEX_PACKAGES)
       .compose(modules ->
-        okapiClient.getOptionalObjects(vertxContext, okapiHeaders, modules,
-          okapiHeaders.get(XOkapiHeaders.URL) + "/codex-packages/" + id, Package.class))
-      .map(instances -> {
-        Optional<Package> packageObject = instances
-          .filter(Optional::isPresent)
-          .map(Optional::get)
-          .findFirst();
+        okapiClient.getObjectById(vertxContext, okapiHeaders, modules, CodexInterfaces.CODEX_PACKAGES,
+          id, okapiHeaders.get(XOkapiHeaders.URL) + "/codex-packages/" + id, Package.class))
+      .map(packageObject -> {
         if (packageObject.isEmpty()) {
           handler.handle(Future.succeededFuture(CodexPackages.GetCodexPackagesByIdResponse.respond404WithTextPlain(id)));
         } else {
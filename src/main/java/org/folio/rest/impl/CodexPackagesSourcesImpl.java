@@ -30,7 +30,7 @@ public class CodexPackagesSourcesImpl implements CodexPackagesSources {
   public void getCodexPackagesSources(String lang, Map<String, String> okapiHeaders,
                                       Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
 
-    logger.info("CodexPackagesSourcesImpl#getCodexPackagesSources");
+    logger.debug("CodexPackagesSourcesImpl#getCodexPackagesSources");
     OkapiParams okapiParams;
     try{
       okapiParams = new OkapiParams(okapiHeaders);
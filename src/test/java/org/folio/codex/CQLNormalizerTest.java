@@ -0,0 +1,63 @@
+package org.folio.codex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import org.junit.Test;
+
+public class CQLNormalizerTest {
+
+  private static String normalize(String query) {
+    return new CQLParameters<>(query).getCanonicalQuery();
+  }
+
+  @Test
+  public void shouldIgnoreWhitespaceAndParentheses() {
+    assertThat(normalize("title=foo   and ((source=kb))"), is(normalize("(title = foo) and source=kb")));
+  }
+
+  @Test
+  public void shouldIgnoreOrderOfAndOrOperands() {
+    assertThat(normalize("a=1 and b=2 and c=3"), is(normalize("c=3 and (b=2 and a=1)")));
+    assertThat(normalize("a=1 or (b=2 and c=3)"), is(normalize("(c=3 and b=2) or a=1")));
+  }
+
+  @Test
+  public void shouldKeepOrderOfNotOperands() {
+    assertThat(normalize("a=1 not b=2"), not(normalize("b=2 not a=1")));
+  }
+
+  @Test
+  public void shouldNotMixAndAndOr() {
+    assertThat(normalize("a=1 and (b=2 or c=3)"), not(normalize("(a=1 and b=2) or c=3")));
+  }
+
+  @Test
+  public void shouldIgnoreCaseOfRelationsAndOperators() {
+    assertThat(normalize("title ALL \"foo bar\" AND a=1"), is(normalize("title all \"foo bar\" and a=1")));
+  }
+
+  @Test
+  public void shouldKeepCaseOfTermsAndSortKeys() {
+    assertThat(normalize("title=Foo"), not(normalize("title=foo")));
+    assertThat(normalize("title=foo sortby title"), not(normalize("title=foo sortby date")));
+  }
+
+  @Test
+  public void shouldWriteValidCql() {
+    String canonical = normalize("b=\"x y\" or a=z sortby title/sort.descending");
+    assertThat(normalize(canonical), is(canonical));
+  }
+
+  @Test
+  public void shouldHashCanonicalQuery() {
+    assertThat(new CQLParameters<>("a=1 and b=2").getQueryHash(), is(new CQLParameters<>("b=2 and a=1").getQueryHash()));
+    assertThat(new CQLParameters<>("a=1").getQueryHash(), not(new CQLParameters<>("a=2").getQueryHash()));
+  }
+
+  @Test
+  public void shouldReturnEmptyStringWithoutQuery() {
+    assertThat(normalize(null), is(""));
+  }
+}
@@ -1,7 +1,11 @@
 package org.folio.codex;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertEquals;
 
 import static org.folio.codex.TestHelper.readFile;
@@ -41,6 +45,8 @@ import org.skyscreamer.jsonassert.JSONAssert;
 import org.folio.codex.model.Module;
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.RestVerticle;
+import org.folio.rest.jaxrs.model.Diagnostic;
+import org.folio.rest.jaxrs.model.PackageCollection;
 import org.folio.rest.tools.utils.NetworkUtils;
 
 @RunWith(VertxUnitRunner.class)
@@ -49,6 +55,7 @@ public class CodexPackagesImplTest {
   private static final String TENANT = "testlib";
   private static final String CODEX_MODULE_1 = "codex-module1";
   private static final String CODEX_MODULE_2 = "codex-module2";
+  private static final String SLOW_MODULE = "slow-codex-module";
   private static final String PACKAGE_ID = "123";
   public static final String PACKAGE_QUERY = "?offset=0&limit=10&query=name=abc*";
   @Rule
@@ -162,6 +169,102 @@ public class CodexPackagesImplTest {
     assertEquals(500, statusCode);
   }
 
+  @Test
+  public void shouldGetPackageByIdWhenOtherModuleFails() throws IOException, URISyntaxException, JSONException {
+    String stubPackage = readFile("codex/responses/package.json");
+    stubPackage(stubPackage, 200, CODEX_MODULE_1);
+    stubFor(get(new UrlPathPattern(new EqualToPattern("/codex-packages/" + PACKAGE_ID), false))
+      .withHeader(XOkapiHeaders.MODULE_ID, new EqualToPattern(CODEX_MODULE_2))
+      .willReturn(new ResponseDefinitionBuilder()
+        .withFault(Fault.RANDOM_DATA_THEN_CLOSE)));
+
+    String response = RestAssured.given()
+      .port(portCodex)
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-packages/" + PACKAGE_ID)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200).extract().asString();
+
+    JSONAssert.assertEquals(response, stubPackage, true);
+  }
+
+  @Test
+  public void shouldGetPackageByIdWithoutWaitingForSlowModule() throws IOException, URISyntaxException, JSONException {
+    String stubPackage = readFile("codex/responses/package.json");
+    stubPackage(stubPackage, 200, CODEX_MODULE_1);
+    stubFor(get(new UrlPathPattern(new EqualToPattern("/codex-packages/" + PACKAGE_ID), false))
+      .withHeader(XOkapiHeaders.MODULE_ID, new EqualToPattern(CODEX_MODULE_2))
+      .willReturn(new ResponseDefinitionBuilder()
+        .withStatus(404)
+        .withFixedDelay(5000)));
+
+    String response = RestAssured.given()
+      .port(portCodex)
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-packages/" + PACKAGE_ID)
+      .then()
+      .log().ifValidationFails()
+      .time(lessThan(4000L))
+      .statusCode(200).extract().asString();
+
+    JSONAssert.assertEquals(response, stubPackage, true);
+  }
+
+  @Test
+  public void shouldReturn404WhenOneModuleFailsAndOtherModuleReturns404() {
+    stubPackage(null, 404, CODEX_MODULE_1);
+    stubFor(get(new UrlPathPattern(new EqualToPattern("/codex-packages/" + PACKAGE_ID), false))
+      .withHeader(XOkapiHeaders.MODULE_ID, new EqualToPattern(CODEX_MODULE_2))
+      .willReturn(new ResponseDefinitionBuilder()
+        .withFault(Fault.RANDOM_DATA_THEN_CLOSE)));
+
+    int statusCode = RestAssured.given()
+      .port(portCodex)
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-packages/" + PACKAGE_ID)
+      .then()
+      .log().ifValidationFails()
+      .extract().statusCode();
+    assertEquals(404, statusCode);
+  }
+
+  @Test
+  public void shouldRouteLookupByIdToModuleThatReturnedPackageInSearch() throws IOException, URISyntaxException {
+    stubPackages(readFile("codex/responses/packages/packages-collection-from-test-module1.json"), 200, CODEX_MODULE_1);
+    stubPackages(null, 404, CODEX_MODULE_2);
+
+    RestAssured.given()
+      .port(portCodex)
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-packages" + PACKAGE_QUERY)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200);
+
+    stubFor(get(urlPathEqualTo("/codex-packages/1111-0000"))
+      .withHeader(XOkapiHeaders.MODULE_ID, new EqualToPattern(CODEX_MODULE_1))
+      .willReturn(new ResponseDefinitionBuilder()
+        .withStatus(200)
+        .withBody(readFile("codex/responses/package.json"))));
+
+    RestAssured.given()
+      .port(portCodex)
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-packages/1111-0000")
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200);
+
+    verify(0, getRequestedFor(urlPathEqualTo("/codex-packages/1111-0000"))
+      .withHeader(XOkapiHeaders.MODULE_ID, new EqualToPattern(CODEX_MODULE_2)));
+  }
+
   @Test
   public void shouldReturnPackagesCollection() throws IOException, URISyntaxException, JSONException {
     String stubPackagesCollectionResponseFromTestModule1 = readFile("codex/responses/packages/packages-collection-from-test-module1.json");
@@ -181,6 +284,63 @@ public class CodexPackagesImplTest {
     JSONAssert.assertEquals(response, stubPackagesCollectionResponse, false);
   }
 
+  @Test
+  public void shouldReturnPartialPackagesCollectionWhenConnectionToOneModuleFails()
+    throws IOException, URISyntaxException {
+    stubPackages(readFile("codex/responses/packages/packages-collection-from-test-module1.json"), 200, CODEX_MODULE_1);
+    stubFor(get(new UrlPathPattern(new RegexPattern("/codex-packages.*"), true))
+      .withHeader(XOkapiHeaders.MODULE_ID, new EqualToPattern(CODEX_MODULE_2))
+      .willReturn(new ResponseDefinitionBuilder()
+        .withFault(Fault.RANDOM_DATA_THEN_CLOSE)));
+
+    PackageCollection collection = RestAssured.given()
+      .port(portCodex)
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-packages" + PACKAGE_QUERY)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200).extract().as(PackageCollection.class);
+
+    assertEquals(2, collection.getPackages().size());
+    assertEquals("502", getDiagnostic(collection, CODEX_MODULE_2).getCode());
+    assertEquals("200", getDiagnostic(collection, CODEX_MODULE_1).getCode());
+  }
+
+  @Test
+  public void shouldReturnPartialPackagesCollectionWhenModuleTimesOut() throws IOException, URISyntaxException {
+    System.setProperty("codex.mux.http.timeout." + SLOW_MODULE, "500");
+    OkapiClient.clearTimeouts();
+    try {
+      List<Module> modules = Arrays.asList(new Module(CODEX_MODULE_1), new Module(SLOW_MODULE));
+      stubModules(CodexInterfaces.CODEX_PACKAGES.getValue(), new ObjectMapper().writeValueAsString(modules), 200);
+      stubPackages(readFile("codex/responses/packages/packages-collection-from-test-module1.json"), 200,
+        CODEX_MODULE_1);
+      stubFor(get(new UrlPathPattern(new RegexPattern("/codex-packages.*"), true))
+        .withHeader(XOkapiHeaders.MODULE_ID, new EqualToPattern(SLOW_MODULE))
+        .willReturn(new ResponseDefinitionBuilder()
+          .withStatus(200)
+          .withBody(readFile("codex/responses/packages/packages-collection-from-test-module1.json"))
+          .withFixedDelay(3000)));
+
+      PackageCollection collection = RestAssured.given()
+        .port(portCodex)
+        .header(tenantHeader)
+        .header(urlHeader)
+        .get("/codex-packages" + PACKAGE_QUERY)
+        .then()
+        .log().ifValidationFails()
+        .time(lessThan(2500L))
+        .statusCode(200).extract().as(PackageCollection.class);
+
+      assertEquals(2, collection.getPackages().size());
+      assertEquals("504", getDiagnostic(collection, SLOW_MODULE).getCode());
+    } finally {
+      System.clearProperty("codex.mux.http.timeout." + SLOW_MODULE);
+      OkapiClient.clearTimeouts();
+    }
+  }
+
   @Test
   public void shouldReturn400WhenQueryIndexInvalidQuery() {
 
@@ -229,6 +389,13 @@ public class CodexPackagesImplTest {
     assertEquals(500, statusCode);
   }
 
+  private Diagnostic getDiagnostic(PackageCollection collection, String module) {
+    return collection.getResultInfo().getDiagnostics().stream()
+      .filter(diagnostic -> module.equals(diagnostic.getSource()))
+      .findFirst()
+      .orElseThrow();
+  }
+
   private void setupMux(TestContext context) {
     JsonObject conf = new JsonObject();
     conf.put("http.port", portCodex);
@@ -0,0 +1,38 @@
+package org.folio.codex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class MuxLogTest {
+
+  @Test
+  public void shouldLimitWarningsPerKey() {
+    MuxLog limiter = new MuxLog(2, 1000);
+    assertThat(limiter.acquire("m1", 0), is(0L));
+    assertThat(limiter.acquire("m1", 10), is(0L));
+    assertThat(limiter.acquire("m1", 20), is(-1L));
+    assertThat(limiter.acquire("m1", 30), is(-1L));
+    assertThat(limiter.acquire("m2", 40), is(0L));
+  }
+
+  @Test
+  public void shouldReportSuppressedWarningsInNextInterval() {
+    MuxLog limiter = new MuxLog(1, 1000);
+    assertThat(limiter.acquire("m1", 0), is(0L));
+    assertThat(limiter.acquire("m1", 100), is(-1L));
+    assertThat(limiter.acquire("m1", 200), is(-1L));
+    assertThat(limiter.acquire("m1", 1000), is(2L));
+    assertThat(limiter.acquire("m1", 1100), is(-1L));
+    assertThat(limiter.acquire("m1", 2500), is(1L));
+  }
+
+  @Test
+  public void shouldTruncateLongFields() {
+    assertThat(MuxLog.truncate("short"), is("short"));
+    assertThat(MuxLog.truncate(null), is("null"));
+    String s = "x".repeat(MuxLog.MAX_FIELD_LENGTH + 1);
+    assertThat(MuxLog.truncate(s).length(), is(MuxLog.MAX_FIELD_LENGTH + 3));
+  }
+}
@@ -4,7 +4,9 @@ import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -33,6 +35,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import org.folio.codex.tracing.InMemorySpanExporter;
+import org.folio.codex.tracing.Span;
+import org.folio.codex.tracing.Tracer;
 import org.folio.rest.RestVerticle;
 import org.folio.rest.jaxrs.model.Diagnostic;
 import org.folio.rest.jaxrs.model.Instance;
@@ -46,6 +51,7 @@ public class MuxTest {
   private final int portCodex = 9031;
   private final Logger logger = LogManager.getLogger("codex.mux");
   private final Set<String> enabledModules = new HashSet<>();
+  private final List<String> proxiedTraceparents = Collections.synchronizedList(new ArrayList<>());
 
   private final Header tenantHeader = new Header("X-Okapi-Tenant", "testlib");
   private final Header urlHeader = new Header("X-Okapi-Url", "http://localhost:" + portOkapi);
@@ -111,6 +117,9 @@ public class MuxTest {
     HttpRequest<Buffer> req = webClient.getAbs(url);
 
     req.putHeaders(ctx.request().headers());
+    if (ctx.request().getHeader(Tracer.TRACEPARENT) != null) {
+      proxiedTraceparents.add(ctx.request().getHeader(Tracer.TRACEPARENT));
+    }
 
     req.send().onSuccess(res -> {
       ctx.response().setStatusCode(res.statusCode());
@@ -187,6 +196,20 @@ public class MuxTest {
     assertThat(ids, is(expectedIds));
   }
 
+  /**
+   * Tell the mux that the enabled codex modules have changed, like an
+   * administrator would do after enabling or disabling codex modules.
+   */
+  private void invalidateModuleCache() {
+    RestAssured.given()
+      .header(tenantHeader)
+      .header(urlHeader)
+      .delete("/codex-mux-admin/module-cache")
+      .then()
+      .log().ifValidationFails()
+      .statusCode(204);
+  }
+
   @Test
   public void testMock(TestContext context) {
     Response r;
@@ -495,6 +518,7 @@ public class MuxTest {
     enabledModules.clear();
     enabledModules.add("mock1");
     enabledModules.add("mod-codex-mutex-1"); // ourselves!!
+    invalidateModuleCache();
 
     RestAssured.given()
       .header(tenantHeader)
@@ -505,6 +529,7 @@ public class MuxTest {
       .statusCode(200);
 
     enabledModules.add("mock2");
+    invalidateModuleCache();
 
     RestAssured.given()
       .header(tenantHeader)
@@ -523,6 +548,7 @@ public class MuxTest {
       .statusCode(200);
 
     enabledModules.clear();
+    invalidateModuleCache();
 
     r = RestAssured.given()
       .header(tenantHeader)
@@ -545,6 +571,7 @@ public class MuxTest {
       .statusCode(400).extract().response();
 
     enabledModules.add("mock1");
+    invalidateModuleCache();
 
     r = RestAssured.given()
       .header(tenantHeader)
@@ -575,6 +602,7 @@ public class MuxTest {
     assertInstanceIdsSorted(r, "73090924", "11224466", "11224467");
 
     enabledModules.add("mock2");
+    invalidateModuleCache();
 
     r = RestAssured.given()
       .header(tenantHeader)
@@ -792,4 +820,230 @@ public class MuxTest {
 
   }
 
+  @Test
+  public void testFailingNextWindow(TestContext context) {
+    logger.info("testFailingNextWindow");
+    RestAssured.port = portCodex;
+
+    enabledModules.clear();
+    enabledModules.add("mock1");
+    enabledModules.add("mock2");
+    invalidateModuleCache();
+
+    // mock2 answers its first window of 13 records, then fails with 500 on the next one
+    Response r = RestAssured.given()
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-instances?limit=20&query=failnext")
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200).extract().response();
+
+    InstanceCollection col = Json.decodeValue(r.getBody().asString(), InstanceCollection.class);
+    context.assertEquals(16, col.getInstances().size());
+    Diagnostic mock2 = null;
+    for (Diagnostic diagnostic : col.getResultInfo().getDiagnostics()) {
+      if ("mock2".equals(diagnostic.getSource())) {
+        mock2 = diagnostic;
+      } else {
+        context.assertEquals("200", diagnostic.getCode());
+      }
+    }
+    context.assertNotNull(mock2);
+    context.assertEquals("500", mock2.getCode());
+    context.assertEquals("provoked failure at offset 13", mock2.getMessage());
+
+    // the shortened result must not be served from the search result cache
+    context.assertEquals(0L, SearchResultCache.get(vertx).getBytes());
+    RestAssured.given()
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-instances?limit=20&query=foo")
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200);
+    context.assertTrue(SearchResultCache.get(vertx).getBytes() > 0L);
+  }
+
+  @Test
+  public void testPagingAfterFailure(TestContext context) {
+    logger.info("testPagingAfterFailure");
+    RestAssured.port = portCodex;
+
+    enabledModules.clear();
+    enabledModules.add("mock1");
+    enabledModules.add("mock2");
+    invalidateModuleCache();
+
+    // mock2 fails the first page only; the next page must ask it again rather than repeat its failure
+    InstanceCollection col = getInstanceCollection("/codex-instances?offset=0&limit=2&query=failoncemock2");
+    context.assertEquals("500", getDiagnostic(col, "mock2").getCode());
+    context.assertEquals(3, col.getResultInfo().getTotalRecords());
+
+    col = getInstanceCollection("/codex-instances?offset=2&limit=2&query=failoncemock2");
+    context.assertEquals("200", getDiagnostic(col, "mock2").getCode());
+    context.assertEquals(23, col.getResultInfo().getTotalRecords());
+    context.assertEquals(2, col.getInstances().size());
+  }
+
+  private InstanceCollection getInstanceCollection(String path) {
+    Response r = RestAssured.given()
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get(path)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200).extract().response();
+    return Json.decodeValue(r.getBody().asString(), InstanceCollection.class);
+  }
+
+  private static Diagnostic getDiagnostic(InstanceCollection col, String source) {
+    for (Diagnostic diagnostic : col.getResultInfo().getDiagnostics()) {
+      if (source.equals(diagnostic.getSource())) {
+        return diagnostic;
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void testTiming(TestContext context) {
+    logger.info("testTiming");
+    RestAssured.port = portCodex;
+
+    enabledModules.clear();
+    enabledModules.add("mock1");
+    enabledModules.add("mock2");
+    invalidateModuleCache();
+
+    Response r = RestAssured.given()
+      .header(tenantHeader)
+      .header(urlHeader)
+      .header("X-Okapi-Codex-Mux-Timing", "true")
+      .get("/codex-instances?limit=5&query=foo")
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200).extract().response();
+
+    InstanceCollection col = Json.decodeValue(r.getBody().asString(), InstanceCollection.class);
+    List<Diagnostic> diagnostics = col.getResultInfo().getDiagnostics();
+    context.assertEquals(3, diagnostics.size());
+    for (Diagnostic diagnostic : diagnostics) {
+      JsonObject timing = new JsonObject(diagnostic.getMessage());
+      if (RequestTiming.SOURCE.equals(diagnostic.getSource())) {
+        context.assertEquals(2, timing.getInteger("modules"));
+        context.assertEquals("bypassed", timing.getString("resultCache"));
+      } else {
+        context.assertTrue(enabledModules.contains(diagnostic.getSource()));
+        context.assertTrue(timing.getInteger("requests") >= 1);
+      }
+    }
+
+    // without the header the diagnostics carry no timing
+    r = RestAssured.given()
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get("/codex-instances?limit=5&query=foo")
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200).extract().response();
+    col = Json.decodeValue(r.getBody().asString(), InstanceCollection.class);
+    context.assertEquals(2, col.getResultInfo().getDiagnostics().size());
+  }
+
+  @Test
+  public void testTracing(TestContext context) {
+    logger.info("testTracing");
+    RestAssured.port = portCodex;
+
+    // the tracer of this Vert.x instance is created by the first request below
+    System.setProperty("codex.mux.tracing.exporter", "memory");
+    try {
+      enabledModules.clear();
+      enabledModules.add("mock1");
+      enabledModules.add("mock2");
+      invalidateModuleCache();
+
+      RestAssured.given()
+        .header(tenantHeader)
+        .header(urlHeader)
+        .get("/codex-instances?limit=5&query=foo")
+        .then()
+        .log().ifValidationFails()
+        .statusCode(200);
+    } finally {
+      System.clearProperty("codex.mux.tracing.exporter");
+    }
+
+    InMemorySpanExporter exporter = (InMemorySpanExporter) Tracer.get(vertx).getExporter();
+    context.assertNotNull(exporter);
+    Span root = null;
+    for (Span span : exporter.getSpans()) {
+      if ("GET /codex-instances".equals(span.getName()) && span.getParentSpanId() == null
+        && exporter.getSpans(span.getTraceId()).stream().anyMatch(s -> "getModuleList".equals(s.getName()))) {
+        root = span;
+      }
+    }
+    context.assertNotNull(root);
+    context.assertEquals(200, root.getAttributes().get("status"));
+
+    Set<String> modules = new HashSet<>();
+    Set<String> getByQuerySpanIds = new HashSet<>();
+    for (Span span : exporter.getSpans(root.getTraceId())) {
+      if ("getByQuery".equals(span.getName())) {
+        modules.add((String) span.getAttributes().get("module"));
+        getByQuerySpanIds.add(span.getSpanId());
+      }
+    }
+    context.assertEquals(enabledModules, modules);
+
+    // each request to a module names the getByQuery span that made it as its parent
+    context.assertFalse(proxiedTraceparents.isEmpty());
+    for (String traceparent : proxiedTraceparents) {
+      context.assertEquals(root.getTraceId(), traceparent.substring(3, 35));
+      context.assertTrue(getByQuerySpanIds.contains(traceparent.substring(36, 52)), traceparent);
+    }
+  }
+
+  private String [] getInstanceIds(String path) {
+    Response r = RestAssured.given()
+      .header(tenantHeader)
+      .header(urlHeader)
+      .get(path)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(200).extract().response();
+    JsonArray array = new JsonObject(r.getBody().asString()).getJsonArray("instances");
+    String [] ids = new String [array.size()];
+    for (int i=0; i<ids.length; i++) {
+      ids[i] = array.getJsonObject(i).getString("id");
+    }
+    return ids;
+  }
+
+  @Test
+  public void testPaging(TestContext context) {
+    logger.info("testPaging");
+    RestAssured.port = portCodex;
+
+    enabledModules.clear();
+    enabledModules.add("mock1");
+    enabledModules.add("mock2");
+    invalidateModuleCache();
+
+    for (String query : Arrays.asList("foo sortby title", "foo sortby id/descending", "foo")) {
+      String [] all = getInstanceIds("/codex-instances?limit=23&query=" + query);
+      context.assertEquals(23, all.length);
+      // walk the pages in order, so that each page continues from the cursor of the previous one
+      for (int offset = 0; offset < 25; offset += 4) {
+        String [] page = getInstanceIds("/codex-instances?offset=" + offset + "&limit=4&query=" + query);
+        String [] expected = Arrays.copyOfRange(all, Math.min(offset, all.length), Math.min(offset + 4, all.length));
+        assertThat(page, is(expected));
+      }
+      // a page at an offset that has no cursor; its limit differs from the pages above, so that
+      // it is not served from the search result cache either
+      String [] page = getInstanceIds("/codex-instances?offset=8&limit=3&query=" + query);
+      assertThat(page, is(Arrays.copyOfRange(all, 8, 11)));
+    }
+  }
 }
@@ -0,0 +1,79 @@
+package org.folio.codex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+public class PageCacheTest {
+
+  private static final ResultInfo RESULT_INFO = new ResultInfo().withTotalRecords(5);
+
+  @Test
+  public void shouldServeWindowWithinPrefix() {
+    PageCache cache = new PageCache(60000, 100);
+    cache.store("k", 0, Arrays.asList("a", "b", "c"), RESULT_INFO, false);
+    PageCache.Window<String> window = cache.lookup("k", 1, 2);
+    assertThat(window.getItems(), contains("b", "c"));
+    assertThat(window.isComplete(), is(true));
+  }
+
+  @Test
+  public void shouldDropWindowsOfInvalidatedTenant() {
+    PageCache cache = new PageCache(60000, 100);
+    cache.store("url|t1|instances|m1|q", 0, Arrays.asList("a", "b"), RESULT_INFO, true);
+    cache.store("url|t2|instances|m1|q", 0, Arrays.asList("c"), RESULT_INFO, true);
+    cache.invalidate("t1");
+    assertThat(cache.lookup("url|t1|instances|m1|q", 0, 2), nullValue());
+    PageCache.Window<String> window = cache.lookup("url|t2|instances|m1|q", 0, 2);
+    assertThat(window.getItems(), contains("c"));
+  }
+
+  @Test
+  public void shouldReturnIncompleteWindowReachingPastPrefix() {
+    PageCache cache = new PageCache(60000, 100);
+    cache.store("k", 0, Arrays.asList("a", "b", "c"), RESULT_INFO, false);
+    PageCache.Window<String> window = cache.lookup("k", 2, 2);
+    assertThat(window.getItems(), contains("c"));
+    assertThat(window.isComplete(), is(false));
+    assertThat(cache.lookup("k", 3, 2), nullValue());
+  }
+
+  @Test
+  public void shouldAppendWindowsContinuingPrefix() {
+    PageCache cache = new PageCache(60000, 100);
+    cache.store("k", 0, Arrays.asList("a", "b"), RESULT_INFO, false);
+    cache.store("k", 1, Arrays.asList("b", "c", "d"), RESULT_INFO, false);
+    cache.store("k", 10, Arrays.asList("x"), RESULT_INFO, false);
+    PageCache.Window<String> window = cache.lookup("k", 0, 10);
+    assertThat(window.getItems(), contains("a", "b", "c", "d"));
+    assertThat(window.isComplete(), is(false));
+  }
+
+  @Test
+  public void shouldCompleteWindowsOfExhaustedPrefix() {
+    PageCache cache = new PageCache(60000, 100);
+    cache.store("k", 0, Arrays.asList("a", "b"), RESULT_INFO, true);
+    PageCache.Window<String> window = cache.lookup("k", 1, 10);
+    assertThat(window.getItems(), contains("b"));
+    assertThat(window.isComplete(), is(true));
+    assertThat(cache.<String>lookup("k", 2, 10).getItems().isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedPrefixes() {
+    PageCache cache = new PageCache(60000, 4);
+    cache.store("k1", 0, Arrays.asList("a", "b"), RESULT_INFO, false);
+    cache.store("k2", 0, Arrays.asList("c", "d"), RESULT_INFO, false);
+    cache.lookup("k1", 0, 1);
+    cache.store("k3", 0, Arrays.asList("e"), RESULT_INFO, false);
+    assertThat(cache.lookup("k2", 0, 1), nullValue());
+    assertThat(cache.<String>lookup("k1", 0, 1).getItems(), contains("a"));
+  }
+}
@@ -0,0 +1,67 @@
+package org.folio.codex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.z3950.zing.cql.CQLNode;
+
+import org.folio.codex.comparator.InstanceComparator;
+import org.folio.codex.exception.QueryValidationException;
+import org.folio.rest.jaxrs.model.Instance;
+
+public class QueryPlanTest {
+
+  @Test
+  public void shouldReuseParsedQuery() {
+    QueryPlan plan = QueryPlan.get("title=foo sortby title");
+    assertThat(QueryPlan.get("title=foo sortby title"), sameInstance(plan));
+    assertThat(plan.getSortNode().getSortIndexes().get(0).getBase(), is("title"));
+  }
+
+  @Test
+  public void shouldCreateComparatorOnce() {
+    QueryPlan plan = QueryPlan.get("title=bar sortby date");
+    assertThat(plan.getComparator(Instance.class, InstanceComparator::get),
+      sameInstance(plan.getComparator(Instance.class, InstanceComparator::get)));
+    assertThat(QueryPlan.get("title=bar").getComparator(Instance.class, InstanceComparator::get), nullValue());
+  }
+
+  @Test
+  public void shouldReduceModuleQueryOnce() {
+    QueryPlan plan = QueryPlan.get("title=baz and source=kb");
+    AtomicInteger reductions = new AtomicInteger();
+    for (int i = 0; i < 3; i++) {
+      plan.getModuleQuery("mod-codex-ekb", module -> {
+        reductions.incrementAndGet();
+        return "title=baz";
+      });
+      assertThat(plan.getModuleQuery("mod-codex-inventory", module -> null), nullValue());
+    }
+    assertThat(reductions.get(), is(1));
+  }
+
+  @Test
+  public void shouldNotModifySharedQueryWhenReducing() {
+    QueryPlan plan = QueryPlan.get("(title=qux and source=mock1) or (source=kb and publisher=x) sortby title");
+    String before = plan.getCqlNode().toCQL();
+    for (String module : new String[] {"mock1", "mock2", "mod-codex-ekb", "mod-codex-inventory", "mod-other"}) {
+      plan.getModuleQuery(module, moduleId -> {
+        CQLNode node = Multiplexer.filterSource(moduleId, plan.getCqlNode());
+        return node != null ? node.toCQL() : null;
+      });
+    }
+    assertThat(plan.getCqlNode().toCQL(), is(before));
+    assertThat(QueryPlan.get("(title=qux and source=mock1) or (source=kb and publisher=x) sortby title"),
+      sameInstance(plan));
+  }
+
+  @Test(expected = QueryValidationException.class)
+  public void shouldRejectInvalidQuery() {
+    QueryPlan.get("title=");
+  }
+}
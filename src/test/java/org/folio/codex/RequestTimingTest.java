@@ -0,0 +1,90 @@
+package org.folio.codex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import org.folio.codex.breaker.CircuitBreakerConfig;
+import org.folio.codex.breaker.CircuitBreakers;
+import org.folio.rest.jaxrs.model.Diagnostic;
+import org.folio.rest.jaxrs.model.Instance;
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+public class RequestTimingTest {
+
+  @Test
+  public void shouldOnlyTimeOnRequest() {
+    assertThat(RequestTiming.of(Map.of()), nullValue());
+    assertThat(RequestTiming.of(Map.of(RequestTiming.TIMING_HEADER, "false")), nullValue());
+    assertThat(RequestTiming.of(Map.of(RequestTiming.TIMING_HEADER, "true")), notNullValue());
+    assertThat(RequestTiming.of(Map.of("X-Okapi-Codex-Mux-Timing", "TRUE")), notNullValue());
+  }
+
+  @Test
+  public void shouldAddTimingToDiagnostics() {
+    RequestTiming timing = RequestTiming.of(Map.of(RequestTiming.TIMING_HEADER, "true"));
+    timing.recordModuleList();
+    timing.recordPageCache("m1", "miss");
+    timing.recordRequest("m1", 2_000_000L, 1000);
+    timing.recordParse("m1", 10, 500_000L);
+    timing.recordRequest("m1", 1_000_000L, 500);
+    timing.recordParse("m1", 5, 250_000L);
+    timing.recordRequest("m2", 30_000_000L, 0);
+    timing.recordMerge(List.of("m1", "m2"), new int[] {8, 0}, 100_000L);
+
+    Map<String, Multiplexer.MuxCollection<Instance>> cols = new LinkedHashMap<>();
+    Multiplexer.MuxCollection<Instance> ok = new Multiplexer.MuxCollection<>();
+    ok.statusCode = 200;
+    cols.put("m1", ok);
+    Multiplexer.MuxCollection<Instance> failed = new Multiplexer.MuxCollection<>();
+    failed.statusCode = 504;
+    failed.message = Buffer.buffer("timeout");
+    cols.put("m2", failed);
+
+    Diagnostic d1 = new Diagnostic();
+    d1.setSource("m1");
+    d1.setCode("200");
+    Diagnostic d2 = new Diagnostic();
+    d2.setSource("m2");
+    d2.setCode("504");
+    d2.setMessage("timeout");
+    ResultInfo resultInfo = new ResultInfo().withTotalRecords(15);
+    resultInfo.setDiagnostics(new ArrayList<>(List.of(d1, d2)));
+
+    timing.addDiagnostics(cols, resultInfo, new CircuitBreakers(new CircuitBreakerConfig()));
+
+    assertThat(resultInfo.getDiagnostics().size(), is(3));
+    JsonObject m1 = new JsonObject(resultInfo.getDiagnostics().get(0).getMessage());
+    assertThat(m1.getDouble("latencyMs"), is(3.0));
+    assertThat(m1.getInteger("requests"), is(2));
+    assertThat(m1.getLong("bytes"), is(1500L));
+    assertThat(m1.getDouble("parseMs"), is(0.75));
+    assertThat(m1.getInteger("fetched"), is(15));
+    assertThat(m1.getInteger("merged"), is(8));
+    assertThat(m1.getString("pageCache"), is("miss"));
+    assertThat(m1.getString("circuit"), is("CLOSED"));
+    assertThat(m1.containsKey("error"), is(false));
+
+    JsonObject m2 = new JsonObject(resultInfo.getDiagnostics().get(1).getMessage());
+    assertThat(m2.getDouble("latencyMs"), is(30.0));
+    assertThat(m2.getString("error"), is("timeout"));
+
+    Diagnostic summary = resultInfo.getDiagnostics().get(2);
+    assertThat(summary.getSource(), is(RequestTiming.SOURCE));
+    assertThat(summary.getRecordCount(), is(15));
+    JsonObject overall = new JsonObject(summary.getMessage());
+    assertThat(overall.getDouble("mergeMs"), is(0.1));
+    assertThat(overall.getInteger("modules"), is(2));
+    assertThat(overall.getString("resultCache"), is("bypassed"));
+  }
+}
@@ -0,0 +1,59 @@
+package org.folio.codex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import org.junit.Test;
+
+public class SearchCoalescerTest {
+
+  @Test
+  public void shouldShareInFlightSearch() {
+    SearchCoalescer coalescer = new SearchCoalescer(true);
+    AtomicInteger searches = new AtomicInteger();
+    Promise<String> promise = Promise.promise();
+
+    Future<String> first = coalescer.coalesce("k", () -> {
+      searches.incrementAndGet();
+      return promise.future();
+    });
+    Future<String> second = coalescer.coalesce("k", () -> {
+      searches.incrementAndGet();
+      return Future.succeededFuture("other");
+    });
+    promise.complete("result");
+
+    assertThat(searches.get(), is(1));
+    assertThat(second, sameInstance(first));
+    assertThat(second.result(), is("result"));
+    assertThat(coalescer.size(), is(0));
+  }
+
+  @Test
+  public void shouldRunSearchAgainAfterCompletion() {
+    SearchCoalescer coalescer = new SearchCoalescer(true);
+    AtomicInteger searches = new AtomicInteger();
+
+    coalescer.coalesce("k", () -> Future.succeededFuture(searches.incrementAndGet()));
+    coalescer.coalesce("k", () -> Future.succeededFuture(searches.incrementAndGet()));
+
+    assertThat(searches.get(), is(2));
+  }
+
+  @Test
+  public void shouldNotShareSearchesWithDifferentKeys() {
+    SearchCoalescer coalescer = new SearchCoalescer(true);
+    Promise<String> promise = Promise.promise();
+
+    coalescer.coalesce("k1", promise::future);
+    Future<String> other = coalescer.coalesce("k2", () -> Future.succeededFuture("other"));
+
+    assertThat(other.result(), is("other"));
+    assertThat(coalescer.size(), is(1));
+  }
+}
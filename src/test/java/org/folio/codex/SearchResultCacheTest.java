@@ -0,0 +1,86 @@
+package org.folio.codex;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.List;
+import java.util.Map;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import org.folio.codex.parser.InstanceCollectionParser;
+import org.folio.okapi.common.XOkapiHeaders;
+
+public class SearchResultCacheTest {
+
+  private static final Buffer RESULT = Buffer.buffer("{\"instances\":[],\"resultInfo\":{\"totalRecords\":0}}");
+
+  @Test
+  public void shouldReturnCachedResult() {
+    SearchResultCache cache = new SearchResultCache(60000, 1000, 1000);
+    cache.put("a", "t1", RESULT);
+    Multiplexer.CollectionExtension<?> result = InstanceCollectionParser.parseInstanceCollection(cache.get("a"));
+    assertThat(result, notNullValue());
+    assertThat(result.getResultInfo().getTotalRecords(), is(0));
+    assertThat(cache.get("b"), nullValue());
+  }
+
+  @Test
+  public void shouldKeyResultsByUser() {
+    Map<String, String> user1 = Map.of(XOkapiHeaders.TENANT, "t1", XOkapiHeaders.USER_ID, "u1");
+    Map<String, String> user2 = Map.of(XOkapiHeaders.TENANT, "t1", XOkapiHeaders.USER_ID, "u2");
+    List<String> modules = List.of("m1", "m2");
+    assertThat(SearchResultCache.key(user1, CodexInterfaces.CODEX, modules, "q", 0, 10),
+      is(SearchResultCache.key(Map.copyOf(user1), CodexInterfaces.CODEX, modules, "q", 0, 10)));
+    assertThat(SearchResultCache.key(user1, CodexInterfaces.CODEX, modules, "q", 0, 10),
+      not(SearchResultCache.key(user2, CodexInterfaces.CODEX, modules, "q", 0, 10)));
+    assertThat(PageCache.key(user1, CodexInterfaces.CODEX, "m1", "q"),
+      not(PageCache.key(user2, CodexInterfaces.CODEX, "m1", "q")));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedResultsOfTenantOverItsLimit() {
+    SearchResultCache cache = new SearchResultCache(60000, 10 * RESULT.length(), 2 * RESULT.length());
+    cache.put("a", "t1", RESULT);
+    cache.put("b", "t2", RESULT);
+    cache.put("c", "t1", RESULT);
+    cache.get("a");
+    cache.put("d", "t1", RESULT);
+    assertThat(cache.get("c"), nullValue());
+    assertThat(cache.get("a"), notNullValue());
+    assertThat(cache.get("b"), notNullValue());
+    assertThat(cache.getBytes(), is(3L * RESULT.length()));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedResultsOverTotalLimit() {
+    SearchResultCache cache = new SearchResultCache(60000, 2 * RESULT.length(), 2 * RESULT.length());
+    cache.put("a", "t1", RESULT);
+    cache.put("b", "t2", RESULT);
+    cache.put("c", "t3", RESULT);
+    assertThat(cache.get("a"), nullValue());
+    assertThat(cache.getBytes(), is(2L * RESULT.length()));
+  }
+
+  @Test
+  public void shouldInvalidateTenant() {
+    SearchResultCache cache = new SearchResultCache(60000, 1000, 1000);
+    cache.put("a", "t1", RESULT);
+    cache.put("b", "t2", RESULT);
+    cache.invalidate("t1");
+    assertThat(cache.get("a"), nullValue());
+    assertThat(cache.get("b"), notNullValue());
+    assertThat(cache.getBytes(), is((long) RESULT.length()));
+  }
+
+  @Test
+  public void shouldNotCacheWhenDisabled() {
+    SearchResultCache cache = new SearchResultCache(-1, 1000, 1000);
+    cache.put("a", "t1", RESULT);
+    assertThat(cache.get("a"), nullValue());
+  }
+}
@@ -0,0 +1,86 @@
+package org.folio.codex.breaker;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+  private CircuitBreakerConfig config = new CircuitBreakerConfig()
+    .setWindowSize(10)
+    .setMinCalls(4)
+    .setFailureRate(50)
+    .setSlowCallRate(100)
+    .setSlowCallDuration(1000)
+    .setOpenDuration(60000)
+    .setHalfOpenCalls(2);
+
+  @Test
+  public void shouldStayClosedBelowMinimumNumberOfCalls() {
+    CircuitBreaker breaker = new CircuitBreaker("m", config);
+    for (int i = 0; i < 3; i++) {
+      assertThat(breaker.tryAcquire(), is(true));
+      breaker.record(true, 10);
+    }
+    assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+  }
+
+  @Test
+  public void shouldOpenAtFailureRate() {
+    CircuitBreaker breaker = new CircuitBreaker("m", config);
+    breaker.record(false, 10);
+    breaker.record(true, 10);
+    breaker.record(false, 10);
+    assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    breaker.record(true, 10);
+    assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+    assertThat(breaker.tryAcquire(), is(false));
+  }
+
+  @Test
+  public void shouldOpenWhenAllCallsAreSlow() {
+    CircuitBreaker breaker = new CircuitBreaker("m", config);
+    for (int i = 0; i < 4; i++) {
+      breaker.record(false, 2000);
+    }
+    assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+  }
+
+  @Test
+  public void shouldForgetOutcomesOutsideOfWindow() {
+    CircuitBreaker breaker = new CircuitBreaker("m", config.setWindowSize(4));
+    breaker.record(true, 10);
+    for (int i = 0; i < 10; i++) {
+      breaker.record(false, 10);
+    }
+    breaker.record(true, 10);
+    assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+  }
+
+  @Test
+  public void shouldCloseAfterSuccessfulProbes() {
+    CircuitBreaker breaker = new CircuitBreaker("m", config.setOpenDuration(0));
+    for (int i = 0; i < 4; i++) {
+      breaker.record(true, 10);
+    }
+    assertThat(breaker.tryAcquire(), is(true));
+    assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+    assertThat(breaker.tryAcquire(), is(true));
+    assertThat(breaker.tryAcquire(), is(false));
+    breaker.record(false, 10);
+    breaker.record(false, 10);
+    assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+  }
+
+  @Test
+  public void shouldOpenAgainWhenProbeFails() {
+    CircuitBreaker breaker = new CircuitBreaker("m", config.setOpenDuration(0));
+    for (int i = 0; i < 4; i++) {
+      breaker.record(true, 10);
+    }
+    assertThat(breaker.tryAcquire(), is(true));
+    breaker.record(true, 10);
+    assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+  }
+}
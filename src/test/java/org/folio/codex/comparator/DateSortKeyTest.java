@@ -0,0 +1,64 @@
+package org.folio.codex.comparator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.ArrayMatching.arrayContaining;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.folio.codex.CQLParameters;
+import org.folio.rest.jaxrs.model.Instance;
+
+public class DateSortKeyTest {
+
+  @Test
+  public void shouldParseYears() {
+    assertThat(DateSortKey.parse("999"), is(9990000L));
+    assertThat(DateSortKey.parse("999-1000"), is(9990000L));
+    assertThat(DateSortKey.parse("650-700"), is(6500000L));
+    assertThat(DateSortKey.parse("ca. 12-999"), is(9990000L));
+    assertThat(DateSortKey.parse("1991"), is(19910000L));
+    assertThat(DateSortKey.parse("c1991"), is(19910000L));
+    assertThat(DateSortKey.parse("[2001?]"), is(20010000L));
+    assertThat(DateSortKey.parse("12 May 1991"), is(19910000L));
+    assertThat(DateSortKey.parse("1991-1995"), is(19910000L));
+  }
+
+  @Test
+  public void shouldCountUnknownDigitsAsZero() {
+    assertThat(DateSortKey.parse("199-"), is(19900000L));
+    assertThat(DateSortKey.parse("19uu"), is(19000000L));
+    assertThat(DateSortKey.parse("19?"), is(1900000L));
+    assertThat(DateSortKey.parse("1?"), is(DateSortKey.MISSING));
+    assertThat(DateSortKey.parse("5-"), is(DateSortKey.MISSING));
+    assertThat(DateSortKey.parse("5- 1991"), is(19910000L));
+  }
+
+  @Test
+  public void shouldParseMonthAndDay() {
+    assertThat(DateSortKey.parse("2018-08-13"), is(20180813L));
+    assertThat(DateSortKey.parse("2018-08"), is(20180800L));
+  }
+
+  @Test
+  public void shouldNotFindYear() {
+    assertThat(DateSortKey.parse("n.d."), is(DateSortKey.MISSING));
+    assertThat(DateSortKey.parse("12345"), is(DateSortKey.MISSING));
+  }
+
+  @Test
+  public void shouldSortInstancesByDate() {
+    Instance d1 = new Instance().withId("1").withDate("[2001?]");
+    Instance d2 = new Instance().withId("2").withDate("c1991");
+    Instance d3 = new Instance().withId("3").withDate("999");
+    Instance d4 = new Instance().withId("4").withDate("n.d.");
+    Instance d5 = new Instance().withId("5").withDate("1991");
+    CQLParameters<Instance> cqlParameters = new CQLParameters<>("cql.allRecords=1 sortBy date/descending id");
+    cqlParameters.setComparator(InstanceComparator.get(cqlParameters.getCQLSortNode()));
+    Instance[] instances = {d3, d5, d4, d1, d2};
+    Arrays.sort(instances, cqlParameters.getComparator());
+    assertThat(instances, is(arrayContaining(d1, d2, d5, d3, d4)));
+  }
+}
@@ -57,6 +57,35 @@ public class InstancesComparatorTest {
     assertThat(sort("cql.allRecords=1 sortBy date/descending", c, a, b), is(arrayContaining(b, a, c)));
   }
 
+  @Test
+  public void sortTitleByCollation() {
+    Instance upper = new Instance().withTitle("Eclair");
+    Instance accented = new Instance().withTitle("\u00e9t\u00e9");
+    Instance missing = new Instance();
+    assertThat(sort("cql.allRecords=1 sortBy title", c, accented, upper, missing, a),
+      is(arrayContaining(missing, a, c, upper, accented)));
+  }
+
+  @Test
+  public void sortByMultipleIndexes() {
+    Instance a2 = new Instance().withTitle("a").withId("4").withDate("2006");
+    assertThat(sort("cql.allRecords=1 sortBy title date/descending", c, a, b, a2),
+      is(arrayContaining(a, a2, b, c)));
+    assertThat(sort("cql.allRecords=1 sortBy title id", c, a2, b, a), is(arrayContaining(a, a2, b, c)));
+  }
+
+  @Test
+  public void sortByPublisherWithMissingValues() {
+    Instance p1 = new Instance().withId("1").withPublisher("Penguin");
+    Instance p2 = new Instance().withId("2").withPublisher("Oxford");
+    Instance p3 = new Instance().withId("3");
+    assertThat(sort("cql.allRecords=1 sortBy publisher", p1, p3, p2), is(arrayContaining(p3, p2, p1)));
+    assertThat(sort("cql.allRecords=1 sortBy publisher/missingHigh", p1, p3, p2), is(arrayContaining(p2, p1, p3)));
+    assertThat(sort("cql.allRecords=1 sortBy publisher/descending", p1, p3, p2), is(arrayContaining(p1, p2, p3)));
+    assertThat(sort("cql.allRecords=1 sortBy publisher/missingValue=Pelican", p1, p3, p2),
+      is(arrayContaining(p2, p3, p1)));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void shouldThrowExceptionWhenNotSupportedIndex() {
     sort("cql.allRecords=1 sortBy invalid");
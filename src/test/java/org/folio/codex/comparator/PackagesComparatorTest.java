@@ -33,6 +33,14 @@ public class PackagesComparatorTest {
     assertThat(sort("cql.allRecords=1 sortBy name", c, a, b), is(arrayContaining(a, b, c)));
   }
 
+  @Test
+  public void sortByProviderAndName() {
+    Package d = new Package().withName("test d").withProvider("EBSCO");
+    Package e = new Package().withName("test e").withProvider("Abc");
+    a.setProvider("EBSCO");
+    assertThat(sort("cql.allRecords=1 sortBy provider name/desc", d, a, e), is(arrayContaining(e, d, a)));
+  }
+
   @Test
   public void sortByNameDescending()  {
     assertThat(sort("cql.allRecords=1 sortBy name/desc", c, a, b), is(arrayContaining(c, b, a)));
@@ -0,0 +1,51 @@
+package org.folio.codex.hedge;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void shouldReturnMinusOneWhenEmpty() {
+    assertThat(new LatencyHistogram(10).getPercentile(95), is(-1L));
+  }
+
+  @Test
+  public void shouldReturnPercentileWithinBucketAccuracy() {
+    LatencyHistogram histogram = new LatencyHistogram(100);
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 10L);
+    }
+    assertThat(histogram.getPercentile(95), allOf(greaterThanOrEqualTo(950L), lessThan(1140L)));
+    assertThat(histogram.getPercentile(50), allOf(greaterThanOrEqualTo(500L), lessThan(600L)));
+  }
+
+  @Test
+  public void shouldOnlyKeepLastSamples() {
+    LatencyHistogram histogram = new LatencyHistogram(10);
+    for (int i = 0; i < 10; i++) {
+      histogram.record(5000);
+    }
+    for (int i = 0; i < 10; i++) {
+      histogram.record(10);
+    }
+    assertThat(histogram.getCount(), is(10));
+    assertThat(histogram.getPercentile(100), lessThan(20L));
+  }
+
+  @Test
+  public void shouldPutLatenciesInIncreasingBuckets() {
+    int previous = 0;
+    for (long latency = 0; latency < 100000; latency += 7) {
+      int bucket = LatencyHistogram.bucket(latency);
+      assertThat(bucket, greaterThanOrEqualTo(previous));
+      previous = bucket;
+    }
+    assertThat(LatencyHistogram.bucket(Long.MAX_VALUE), is(LatencyHistogram.BUCKETS - 1));
+  }
+}
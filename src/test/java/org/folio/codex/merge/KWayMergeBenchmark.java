@@ -0,0 +1,111 @@
+package org.folio.codex.merge;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.folio.codex.CQLParameters;
+import org.folio.codex.comparator.InstanceComparator;
+import org.folio.rest.jaxrs.model.Instance;
+
+/**
+ * Compares the linear scan merge that the multiplexer used to do with {@link KWayMerge}.
+ * Every source holds offset + limit instances sorted by title, like the sub results that
+ * the multiplexer gets from each codex module.
+ *
+ * <p>Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.folio.codex.merge.KWayMergeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KWayMergeBenchmark {
+
+  @Param({"2", "8", "32"})
+  int sources;
+
+  @Param({"0", "1000", "10000"})
+  int offset;
+
+  private static final int LIMIT = 100;
+
+  private List<List<Instance>> collections;
+  private Comparator<Instance> comparator;
+
+  @Setup
+  public void setUp() {
+    CQLParameters<Instance> cqlParameters = new CQLParameters<>("cql.allRecords=1 sortBy title");
+    comparator = InstanceComparator.get(cqlParameters.getCQLSortNode());
+    Random random = new Random(42);
+    collections = new ArrayList<>();
+    for (int i = 0; i < sources; i++) {
+      List<Instance> instances = new ArrayList<>();
+      for (int j = 0; j < offset + LIMIT; j++) {
+        instances.add(new Instance()
+          .withId(i + "-" + j)
+          .withTitle("Title " + Long.toString(random.nextLong() & Long.MAX_VALUE, 36)));
+      }
+      instances.sort(comparator);
+      collections.add(instances);
+    }
+  }
+
+  @Benchmark
+  public List<Instance> linearScan() {
+    List<Instance> result = new ArrayList<>();
+    int[] pointers = new int[collections.size()];
+    for (int barrier = 0; barrier < offset + LIMIT; barrier++) {
+      Instance minElement = null;
+      int minIndex = -1;
+      for (int index = 0; index < collections.size(); index++) {
+        List<Instance> collection = collections.get(index);
+        if (pointers[index] < collection.size()) {
+          Instance element = collection.get(pointers[index]);
+          if (minElement == null || comparator.compare(minElement, element) > 0) {
+            minIndex = index;
+            minElement = element;
+          }
+        }
+      }
+      if (minElement == null) {
+        break;
+      }
+      pointers[minIndex]++;
+      if (barrier >= offset) {
+        result.add(minElement);
+      }
+    }
+    return result;
+  }
+
+  @Benchmark
+  public List<Instance> kWayMerge() {
+    return KWayMerge.merge(collections, comparator, offset, LIMIT);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(KWayMergeBenchmark.class.getSimpleName())
+      .build()).run();
+  }
+}
@@ -0,0 +1,87 @@
+package org.folio.codex.merge;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.folio.codex.comparator.SortKey;
+
+public class KWayMergeTest {
+
+  private final List<String> source1 = Arrays.asList("a", "c", "e");
+  private final List<String> source2 = Arrays.asList("b", "c", "d");
+
+  @Test
+  public void shouldMergeSortedSources() {
+    assertThat(KWayMerge.merge(Arrays.asList(source1, source2), Comparator.naturalOrder(), 0, 10),
+      contains("a", "b", "c", "c", "d", "e"));
+  }
+
+  @Test
+  public void shouldApplyOffsetAndLimit() {
+    assertThat(KWayMerge.merge(Arrays.asList(source1, source2), Comparator.naturalOrder(), 2, 3),
+      contains("c", "c", "d"));
+  }
+
+  @Test
+  public void shouldInterleaveSourcesWithoutComparator() {
+    assertThat(KWayMerge.merge(Arrays.asList(source1, Arrays.asList("x"), source2), null, 0, 10),
+      contains("a", "x", "b", "c", "c", "e", "d"));
+  }
+
+  @Test
+  public void shouldPreferLowerSourceOnTies() {
+    List<String> upper = Collections.singletonList("A");
+    List<String> lower = Collections.singletonList("a");
+    assertThat(KWayMerge.merge(Arrays.asList(upper, lower), String.CASE_INSENSITIVE_ORDER, 0, 10),
+      contains("A", "a"));
+    assertThat(KWayMerge.merge(Arrays.asList(lower, upper), String.CASE_INSENSITIVE_ORDER, 0, 10),
+      contains("a", "A"));
+  }
+
+  @Test
+  public void shouldIgnoreMissingSources() {
+    assertThat(KWayMerge.merge(Arrays.asList(null, Collections.<String>emptyList()), null, 0, 10), empty());
+  }
+
+  @Test
+  public void shouldWaitForRefillOfWindowedSource() {
+    KWayMerge<String> merge = new KWayMerge<String>(Comparator.naturalOrder());
+    merge.addSource(0, Arrays.asList("a", "c"), 0, true);
+    merge.addSource(1, Arrays.asList("b", "d", "f"), 0, false);
+    assertThat(merge.next(), is("a"));
+    assertThat(merge.next(), is("b"));
+    assertThat(merge.next(), is("c"));
+    assertThat(merge.hasNext(), is(false));
+    assertThat(merge.getRefillSource(), is(0));
+    merge.refill(0, Arrays.asList("e"), false);
+    assertThat(merge.position(0), is(2));
+    List<String> rest = new ArrayList<>();
+    while (merge.hasNext()) {
+      rest.add(merge.next());
+    }
+    assertThat(rest, contains("d", "e", "f"));
+    assertThat(merge.getRefillSource(), is(-1));
+  }
+
+  @Test
+  public void shouldExtractSortKeyOncePerElement() {
+    List<String> extracted = new ArrayList<>();
+    SortKey<String> sortKey = SortKey.ordinal(s -> {
+      extracted.add(s);
+      return s;
+    }, false);
+    assertThat(KWayMerge.merge(Arrays.asList(source1, source2, Arrays.asList("B", "f")), sortKey, 0, 10),
+      contains("a", "b", "B", "c", "c", "d", "e", "f"));
+    assertThat(extracted.size(), is(8));
+  }
+}
@@ -0,0 +1,46 @@
+package org.folio.codex.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.Test;
+
+import org.folio.codex.breaker.CircuitBreakerConfig;
+import org.folio.codex.breaker.CircuitBreakers;
+
+public class MuxMetricsTest {
+
+  @Test
+  public void shouldScrapeModuleRequests() {
+    MuxMetrics metrics = new MuxMetrics(true);
+    metrics.recordModuleRequest("mod-codex-a", "200", 5_000_000L, 1000);
+    metrics.recordModuleRequest("mod-codex-a", "200", 7_000_000L, 3000);
+    metrics.recordModuleRequest("mod-codex-b", "timeout", 30_000_000L, -1);
+    String scrape = metrics.scrape(new CircuitBreakers(new CircuitBreakerConfig()));
+    assertThat(scrape, containsString("codex_mux_module_requests_seconds_count{module=\"mod-codex-a\",status=\"200\",} 2.0"));
+    assertThat(scrape, containsString("codex_mux_module_requests_seconds_count{module=\"mod-codex-b\",status=\"timeout\",} 1.0"));
+    assertThat(scrape, containsString("codex_mux_module_response_bytes_sum{module=\"mod-codex-a\",} 4000.0"));
+  }
+
+  @Test
+  public void shouldScrapeRecordsAndBreakers() {
+    MuxMetrics metrics = new MuxMetrics(true);
+    metrics.recordRecordsReceived("codex", 30);
+    metrics.recordMerge("codex", 10, 1000L);
+    CircuitBreakers breakers = new CircuitBreakers(new CircuitBreakerConfig());
+    breakers.forModule("mod-codex-a");
+    String scrape = metrics.scrape(breakers);
+    assertThat(scrape, containsString("codex_mux_records_received_total{interface=\"codex\",} 30.0"));
+    assertThat(scrape, containsString("codex_mux_records_merged_total{interface=\"codex\",} 10.0"));
+    assertThat(scrape, containsString("codex_mux_circuit_state{module=\"mod-codex-a\",} 0.0"));
+  }
+
+  @Test
+  public void shouldRecordNothingWhenDisabled() {
+    MuxMetrics metrics = new MuxMetrics(false);
+    metrics.recordModuleRequest("mod-codex-a", "200", 5_000_000L, 1000);
+    assertThat(metrics.isEnabled(), is(false));
+    assertThat(metrics.scrape(new CircuitBreakers(new CircuitBreakerConfig())), is(""));
+  }
+}
@@ -0,0 +1,43 @@
+package org.folio.codex.parser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertNull;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import org.junit.Test;
+
+import org.folio.codex.Multiplexer;
+import org.folio.rest.jaxrs.model.Instance;
+
+public class CollectionDecoderTest {
+
+  @Test
+  public void shouldMoveLegacyTotalRecordsToResultInfo() {
+    Buffer body = Buffer.buffer("{\"totalRecords\":5,\"instances\":[{\"id\":\"1\",\"title\":\"a\"},{\"id\":\"2\"}]}");
+    Multiplexer.CollectionExtension<Instance> collection = CollectionDecoder.decode(body, "instances", Instance.class);
+    assertThat(collection.getResultInfo().getTotalRecords(), equalTo(5));
+    assertThat(collection.getResultInfo().getDiagnostics().size(), equalTo(0));
+    assertThat(collection.getItems().size(), equalTo(2));
+    assertThat(collection.getItems().get(0).getTitle(), equalTo("a"));
+  }
+
+  @Test
+  public void shouldKeepResultInfo() {
+    Buffer body = Buffer.buffer("{\"instances\":[],\"resultInfo\":{\"totalRecords\":7,\"facets\":[],\"diagnostics\":[]}}");
+    Multiplexer.CollectionExtension<Instance> collection = CollectionDecoder.decode(body, "instances", Instance.class);
+    assertThat(collection.getResultInfo().getTotalRecords(), equalTo(7));
+    assertThat(collection.getItems().size(), equalTo(0));
+  }
+
+  @Test
+  public void shouldReturnNullForNullBody() {
+    assertNull(CollectionDecoder.decode(Buffer.buffer("null"), "instances", Instance.class));
+  }
+
+  @Test(expected = DecodeException.class)
+  public void shouldFailOnInvalidBody() {
+    CollectionDecoder.decode(Buffer.buffer("{\"instances\":[{"), "instances", Instance.class);
+  }
+}
@@ -0,0 +1,51 @@
+package org.folio.codex.parser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+import java.util.ArrayList;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import org.folio.codex.Multiplexer;
+import org.folio.rest.jaxrs.model.Instance;
+import org.folio.rest.jaxrs.model.ResultInfo;
+
+public class CollectionEncoderTest {
+
+  @Test
+  public void shouldEncodeItemsAndResultInfo() {
+    CollectionEncoder<Instance> encoder = new CollectionEncoder<>("instances");
+    encoder.write(new Instance().withId("1").withTitle("a"));
+    encoder.write(new Instance().withId("2"));
+    Buffer body = encoder.finish(new ResultInfo().withTotalRecords(9).withDiagnostics(new ArrayList<>()));
+
+    Multiplexer.CollectionExtension<Instance> collection = CollectionDecoder.decode(body, "instances", Instance.class);
+    assertThat(collection.getResultInfo().getTotalRecords(), equalTo(9));
+    assertThat(collection.getItems().size(), equalTo(2));
+    assertThat(collection.getItems().get(0).getTitle(), equalTo("a"));
+    assertThat(collection.getItems().get(1).getId(), equalTo("2"));
+  }
+
+  @Test
+  public void shouldEncodeEmptyCollection() {
+    Buffer body = new CollectionEncoder<Instance>("instances").finish(new ResultInfo().withTotalRecords(0));
+    JsonObject json = body.toJsonObject();
+    assertThat(json.getJsonArray("instances").size(), equalTo(0));
+    assertThat(json.getJsonObject("resultInfo").getInteger("totalRecords"), equalTo(0));
+  }
+
+  @Test
+  public void shouldBackCollectionByArrayOfItsSize() {
+    CollectionEncoder<Instance> encoder = new CollectionEncoder<>("instances");
+    encoder.write(new Instance().withId("1"));
+    Buffer body = encoder.finish(new ResultInfo().withTotalRecords(1));
+    byte[] data = CollectionEncoder.array(body);
+    assertThat(data.length, equalTo(body.length()));
+    assertThat(CollectionEncoder.array(body), sameInstance(data));
+    assertThat(Buffer.buffer(data).toJsonObject(), equalTo(body.toJsonObject()));
+  }
+}
@@ -0,0 +1,60 @@
+package org.folio.codex.parser;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertNull;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import org.junit.Test;
+
+import org.folio.codex.Multiplexer;
+import org.folio.rest.jaxrs.model.Instance;
+
+public class StreamingCollectionDecoderTest {
+
+  private static StreamingCollectionDecoder<Instance> decode(String body, int chunkSize) {
+    StreamingCollectionDecoder<Instance> decoder = new StreamingCollectionDecoder<>("instances", Instance.class);
+    for (int i = 0; i < body.length(); i += chunkSize) {
+      decoder.write(Buffer.buffer(body.substring(i, Math.min(body.length(), i + chunkSize))));
+    }
+    decoder.end();
+    return decoder;
+  }
+
+  @Test
+  public void shouldDecodeItemsSplitAcrossChunks() {
+    String body = "{\"other\":{\"a\":[1,{\"b\":2}]},\"instances\":[{\"id\":\"1\",\"title\":\"a\"},{\"id\":\"2\"}],"
+      + "\"resultInfo\":{\"totalRecords\":7,\"facets\":[],\"diagnostics\":[]}}";
+    for (int chunkSize : new int[] {1, 3, body.length()}) {
+      Multiplexer.CollectionExtension<Instance> collection = decode(body, chunkSize).getCollection();
+      assertThat(collection.getResultInfo().getTotalRecords(), equalTo(7));
+      assertThat(collection.getItems().size(), equalTo(2));
+      assertThat(collection.getItems().get(0).getTitle(), equalTo("a"));
+      assertThat(collection.getItems().get(1).getId(), equalTo("2"));
+    }
+  }
+
+  @Test
+  public void shouldMoveLegacyTotalRecordsToResultInfo() {
+    Multiplexer.CollectionExtension<Instance> collection =
+      decode("{\"totalRecords\":5,\"instances\":[{\"id\":\"1\"}]}", 4).getCollection();
+    assertThat(collection.getResultInfo().getTotalRecords(), equalTo(5));
+    assertThat(collection.getItems().size(), equalTo(1));
+  }
+
+  @Test
+  public void shouldReturnNullForNullBody() {
+    assertNull(decode("null", 2).getCollection());
+  }
+
+  @Test
+  public void shouldKeepErrorMessage() {
+    assertThat(decode("Not found", 2).getRaw().toString(), equalTo("Not found"));
+  }
+
+  @Test(expected = DecodeException.class)
+  public void shouldFailOnTruncatedBody() {
+    decode("{\"instances\":[{\"id\":", 5).getCollection();
+  }
+}
@@ -0,0 +1,101 @@
+package org.folio.codex.tracing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TracerTest {
+
+  private static final String TRACEPARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+  @Test
+  public void shouldContinueTraceOfCaller() {
+    InMemorySpanExporter exporter = new InMemorySpanExporter(10);
+    Tracer tracer = new Tracer(exporter);
+    Span span = tracer.startSpan("GET /codex-instances", Map.of(Tracer.TRACEPARENT, TRACEPARENT));
+    assertThat(span.getTraceId(), is("0af7651916cd43dd8448eb211c80319c"));
+    assertThat(span.getParentSpanId(), is("b7ad6b7169203331"));
+    assertThat(span.getSpanId().length(), is(16));
+    assertThat(Tracer.isValid(span.getTraceparent()), is(true));
+  }
+
+  @Test
+  public void shouldPropagateContextInHeaders() {
+    InMemorySpanExporter exporter = new InMemorySpanExporter(10);
+    Tracer tracer = new Tracer(exporter);
+    Span root = tracer.startSpan("GET /codex-instances", Map.of("x-okapi-tenant", "diku"));
+    assertThat(root.getParentSpanId(), is(nullValue()));
+    Map<String, String> headers = root.inject(Map.of("x-okapi-tenant", "diku"));
+    assertThat(headers.get("x-okapi-tenant"), is("diku"));
+
+    Span leg = tracer.startSpan("getByQuery", headers).setAttribute("module", "mod-codex-a");
+    Span parse = leg.startChild("parse");
+    parse.end();
+    leg.end();
+    leg.end();
+    root.end();
+
+    List<Span> spans = exporter.getSpans(root.getTraceId());
+    assertThat(spans, hasSize(3));
+    assertThat(spans.get(0).getParentSpanId(), is(leg.getSpanId()));
+    assertThat(spans.get(1).getParentSpanId(), is(root.getSpanId()));
+    assertThat(spans.get(1).getAttributes().get("module"), is("mod-codex-a"));
+    assertThat(spans.get(1).getDurationNanos() >= 0, is(true));
+  }
+
+  @Test
+  public void shouldKeepHeaderNamesCaseInsensitive() {
+    Tracer tracer = new Tracer(new InMemorySpanExporter(10));
+    Span root = tracer.startSpan("GET /codex-instances", Map.of());
+    Map<String, String> headers = root.inject(Map.of("X-Okapi-Tenant", "diku"));
+    assertThat(headers.get("x-okapi-tenant"), is("diku"));
+    assertThat(headers.get("TraceParent"), is(root.getTraceparent()));
+  }
+
+  @Test
+  public void shouldStartNewTraceForInvalidTraceparent() {
+    Tracer tracer = new Tracer(new InMemorySpanExporter(10));
+    Span span = tracer.startSpan("getModuleList",
+      Map.of(Tracer.TRACEPARENT, "00-00000000000000000000000000000000-b7ad6b7169203331-01"));
+    assertThat(span.getParentSpanId(), is(nullValue()));
+    assertThat(span.getTraceId(), is(not("00000000000000000000000000000000")));
+    assertThat(Tracer.isValid("01-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"), is(false));
+    assertThat(Tracer.isValid("00-0AF7651916CD43DD8448EB211C80319C-b7ad6b7169203331-01"), is(false));
+  }
+
+  @Test
+  public void shouldDisableTracingForUnknownExporter() {
+    assertThat(Tracer.createExporter("jaeger"), is(nullValue()));
+    assertThat(new Tracer(Tracer.createExporter("jaeger")).isEnabled(), is(false));
+    assertThat(Tracer.createExporter("Memory") instanceof InMemorySpanExporter, is(true));
+  }
+
+  @Test
+  public void shouldRecordNothingWhenDisabled() {
+    Tracer tracer = new Tracer(null);
+    Map<String, String> headers = Map.of(Tracer.TRACEPARENT, TRACEPARENT);
+    Span span = tracer.startSpan("getByQuery", headers);
+    assertThat(span.isRecording(), is(false));
+    assertThat(span.inject(headers), is(sameInstance(headers)));
+    assertThat(span.startChild("parse").isRecording(), is(false));
+  }
+
+  @Test
+  public void shouldKeepLastSpans() {
+    InMemorySpanExporter exporter = new InMemorySpanExporter(2);
+    Tracer tracer = new Tracer(exporter);
+    for (String name : List.of("a", "b", "c")) {
+      tracer.startSpan(name, null).end();
+    }
+    assertThat(exporter.getSpans(), hasSize(2));
+    assertThat(exporter.getSpans().get(0).getName(), is("b"));
+  }
+}